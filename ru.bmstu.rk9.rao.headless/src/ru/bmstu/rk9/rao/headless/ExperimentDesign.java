@@ -0,0 +1,127 @@
+package ru.bmstu.rk9.rao.headless;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/*
+ * Set of points of an experiment, every point maps names of model constants
+ * to values they are overridden with. Values are kept as strings and are
+ * converted to types of constants by ModelParameters.
+ */
+public class ExperimentDesign {
+	private ExperimentDesign(List<String> parameterNames, List<Map<String, String>> points) {
+		this.parameterNames = Collections.unmodifiableList(parameterNames);
+		this.points = Collections.unmodifiableList(points);
+	}
+
+	private final List<String> parameterNames;
+	private final List<Map<String, String>> points;
+
+	public final List<String> getParameterNames() {
+		return parameterNames;
+	}
+
+	public final List<Map<String, String>> getPoints() {
+		return points;
+	}
+
+	// Full factorial design, the last parameter changes fastest
+	public static final ExperimentDesign grid(Map<String, List<String>> levels) {
+		List<Map<String, String>> points = new ArrayList<>();
+		points.add(new LinkedHashMap<>());
+
+		for (Map.Entry<String, List<String>> parameter : levels.entrySet()) {
+			if (parameter.getValue().isEmpty())
+				throw new HeadlessRunnerException("No values given for parameter " + parameter.getKey());
+
+			List<Map<String, String>> extendedPoints = new ArrayList<>();
+			for (Map<String, String> point : points) {
+				for (String value : parameter.getValue()) {
+					Map<String, String> extendedPoint = new LinkedHashMap<>(point);
+					extendedPoint.put(parameter.getKey(), value);
+					extendedPoints.add(extendedPoint);
+				}
+			}
+			points = extendedPoints;
+		}
+
+		return new ExperimentDesign(new ArrayList<>(levels.keySet()), points);
+	}
+
+	public static class Range {
+		public Range(double low, double high, boolean isInteger) {
+			this.low = low;
+			this.high = high;
+			this.isInteger = isInteger;
+		}
+
+		private final double low;
+		private final double high;
+		private final boolean isInteger;
+
+		// Integer range is given by two integer bounds, e.g. 1..10
+		public static final Range parse(String range) {
+			String[] bounds = range.split("\\.\\.", -1);
+			if (bounds.length != 2)
+				throw new HeadlessRunnerException("Invalid range " + range + ", expected <low>..<high>");
+
+			boolean isInteger = isInteger(bounds[0]) && isInteger(bounds[1]);
+			double low = Double.parseDouble(bounds[0]);
+			double high = Double.parseDouble(bounds[1]);
+			if (!(low <= high))
+				throw new HeadlessRunnerException("Invalid range " + range);
+
+			return new Range(low, high, isInteger);
+		}
+
+		private static final boolean isInteger(String bound) {
+			try {
+				Long.parseLong(bound.trim());
+				return true;
+			} catch (NumberFormatException e) {
+				return false;
+			}
+		}
+
+		private final String valueAt(double fraction) {
+			if (!isInteger)
+				return String.valueOf(low + fraction * (high - low));
+
+			long value = (long) Math.floor(low + fraction * (high - low + 1));
+			return String.valueOf(Math.min(value, (long) high));
+		}
+	}
+
+	// Latin hypercube sample: the range of each parameter is split into as
+	// many strata as there are points, and every stratum is hit exactly once
+	public static final ExperimentDesign latinHypercube(Map<String, Range> ranges, int numberOfPoints, long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+
+		List<Map<String, String>> points = new ArrayList<>();
+		for (int i = 0; i < numberOfPoints; i++)
+			points.add(new LinkedHashMap<>());
+
+		for (Map.Entry<String, Range> parameter : ranges.entrySet()) {
+			int[] strata = new int[numberOfPoints];
+			for (int i = 0; i < numberOfPoints; i++)
+				strata[i] = i;
+			for (int i = numberOfPoints - 1; i > 0; i--) {
+				int j = random.nextInt(i + 1);
+				int stratum = strata[i];
+				strata[i] = strata[j];
+				strata[j] = stratum;
+			}
+
+			for (int i = 0; i < numberOfPoints; i++) {
+				double fraction = (strata[i] + random.nextDouble()) / numberOfPoints;
+				points.get(i).put(parameter.getKey(), parameter.getValue().valueAt(fraction));
+			}
+		}
+
+		return new ExperimentDesign(new ArrayList<>(ranges.keySet()), points);
+	}
+}
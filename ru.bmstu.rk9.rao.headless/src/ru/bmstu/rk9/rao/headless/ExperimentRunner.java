@@ -0,0 +1,152 @@
+package ru.bmstu.rk9.rao.headless;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import ru.bmstu.rk9.rao.lib.result.ReplicationStatistics;
+
+/*
+ * Runs every point of an experiment design for a number of replications.
+ * All runs of all points share one pool, each run with its own simulator
+ * context. Every point uses the same replication seeds, so points are
+ * compared under common random numbers.
+ */
+public class ExperimentRunner {
+	public ExperimentRunner(HeadlessRunner runner, int parallelism, ResultCache cache) {
+		this.runner = runner;
+		this.parallelism = parallelism;
+		this.cache = cache;
+	}
+
+	private final HeadlessRunner runner;
+	private final int parallelism;
+	private final ResultCache cache;
+
+	public static class Point {
+		Point(Map<String, String> parameterValues, List<RunResult> runs, ReplicationStatistics statistics) {
+			this.parameterValues = parameterValues;
+			this.runs = runs;
+			this.statistics = statistics;
+		}
+
+		private final Map<String, String> parameterValues;
+		private final List<RunResult> runs;
+		private final ReplicationStatistics statistics;
+
+		public final Map<String, String> getParameterValues() {
+			return parameterValues;
+		}
+
+		public final List<RunResult> getRuns() {
+			return runs;
+		}
+
+		public final ReplicationStatistics getStatistics() {
+			return statistics;
+		}
+	}
+
+	public static class Experiment {
+		Experiment(ExperimentDesign design, List<Point> points, int numberOfCachedRuns, long elapsedNanos) {
+			this.design = design;
+			this.points = Collections.unmodifiableList(points);
+			this.numberOfCachedRuns = numberOfCachedRuns;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		private final ExperimentDesign design;
+		private final List<Point> points;
+		private final int numberOfCachedRuns;
+		private final long elapsedNanos;
+
+		public final ExperimentDesign getDesign() {
+			return design;
+		}
+
+		public final List<Point> getPoints() {
+			return points;
+		}
+
+		public final int getNumberOfCachedRuns() {
+			return numberOfCachedRuns;
+		}
+
+		public final long getElapsedNanos() {
+			return elapsedNanos;
+		}
+	}
+
+	public final Experiment run(ExperimentDesign design, int numberOfReplications, Long masterSeed,
+			double confidenceLevel) {
+		List<Long> seeds = ReplicationsRunner.drawSeeds(numberOfReplications, masterSeed);
+		List<Map<String, String>> parameterPoints = design.getPoints();
+
+		List<List<RunResult>> cachedRuns = new ArrayList<>();
+		int numberOfCachedRuns = 0;
+		for (Map<String, String> parameterValues : parameterPoints) {
+			List<RunResult> runs = new ArrayList<>();
+			for (Long seed : seeds) {
+				RunResult run = cache != null ? cache.get(parameterValues, seed) : null;
+				if (run != null)
+					numberOfCachedRuns++;
+				runs.add(run);
+			}
+			cachedRuns.add(runs);
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		final long startTime = System.nanoTime();
+
+		try {
+			List<List<Future<RunResult>>> futures = new ArrayList<>();
+			for (int i = 0; i < parameterPoints.size(); i++) {
+				Map<String, String> parameterValues = parameterPoints.get(i);
+				List<Future<RunResult>> pointFutures = new ArrayList<>();
+
+				for (int j = 0; j < seeds.size(); j++) {
+					Long seed = seeds.get(j);
+					pointFutures.add(cachedRuns.get(i).get(j) != null ? null
+							: pool.submit(() -> runAndCache(parameterValues, seed)));
+				}
+				futures.add(pointFutures);
+			}
+
+			List<Point> points = new ArrayList<>();
+			for (int i = 0; i < parameterPoints.size(); i++) {
+				ReplicationStatistics statistics = new ReplicationStatistics(confidenceLevel);
+				List<RunResult> runs = new ArrayList<>();
+
+				for (int j = 0; j < seeds.size(); j++) {
+					Future<RunResult> future = futures.get(i).get(j);
+					RunResult run = future != null ? future.get() : cachedRuns.get(i).get(j);
+					statistics.addReplication(run.getResults());
+					runs.add(run);
+				}
+
+				points.add(new Point(parameterPoints.get(i), runs, statistics));
+			}
+
+			return new Experiment(design, points, numberOfCachedRuns, System.nanoTime() - startTime);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new HeadlessRunnerException("Experiment was interrupted", e);
+		} catch (ExecutionException e) {
+			throw new HeadlessRunnerException("Experiment run failed", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private final RunResult runAndCache(Map<String, String> parameterValues, Long seed) throws IOException {
+		RunResult run = runner.run(seed, parameterValues);
+		if (cache != null)
+			cache.put(parameterValues, seed, run);
+		return run;
+	}
+}
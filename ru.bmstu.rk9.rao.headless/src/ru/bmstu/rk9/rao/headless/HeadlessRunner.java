@@ -0,0 +1,117 @@
+package ru.bmstu.rk9.rao.headless;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import ru.bmstu.rk9.rao.lib.database.SerializationObjectsNames;
+import ru.bmstu.rk9.rao.lib.event.EventSchedulerType;
+import ru.bmstu.rk9.rao.lib.json.JSONObject;
+import ru.bmstu.rk9.rao.lib.result.AbstractResult;
+import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator;
+import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator.SimulationStopCode;
+import ru.bmstu.rk9.rao.lib.simulator.Simulator;
+import ru.bmstu.rk9.rao.lib.simulator.SimulatorContext;
+import ru.bmstu.rk9.rao.lib.simulator.SimulatorInitializationInfo;
+import ru.bmstu.rk9.rao.lib.simulator.SimulatorPreinitializationInfo;
+
+public class HeadlessRunner {
+	public HeadlessRunner(Path modelPath, List<String> modelClassNames) {
+		this(modelPath, modelClassNames, null);
+	}
+
+	// Event scheduler overrides the one set in project of the model, null
+	// keeps it
+	public HeadlessRunner(Path modelPath, List<String> modelClassNames, EventSchedulerType eventSchedulerType) {
+		this.modelPath = modelPath;
+		this.modelClassNames = modelClassNames;
+		this.eventSchedulerType = eventSchedulerType;
+	}
+
+	private final Path modelPath;
+	private final List<String> modelClassNames;
+	private final EventSchedulerType eventSchedulerType;
+
+	public final Path getModelPath() {
+		return modelPath;
+	}
+
+	public final List<String> getModelClassNames() {
+		return modelClassNames;
+	}
+
+	// Every run loads model classes with a fresh class loader, as generated
+	// code keeps results and resources in static fields. Simulator is bound
+	// to the calling thread only, so runs on different threads do not interfere
+	public final RunResult run() {
+		return run(null);
+	}
+
+	public final RunResult run(Long masterSeed) {
+		return run(masterSeed, Collections.<String, String> emptyMap());
+	}
+
+	// Master seed is mixed into seeds of all random sequences of the model,
+	// null keeps seeds written in model. Parameter values override model
+	// constants, see ModelParameters
+	public final RunResult run(Long masterSeed, Map<String, String> parameterValues) {
+		final long startTime = System.nanoTime();
+		final ModelLoader loader = new ModelLoader(modelPath, modelClassNames);
+
+		SimulatorContext context = new SimulatorContext();
+		context.setMasterSeed(masterSeed);
+		context.setParameterValues(parameterValues);
+		CurrentSimulator.bindContext(context);
+
+		try {
+			try {
+				loader.load();
+			} catch (IOException | ReflectiveOperationException e) {
+				throw new HeadlessRunnerException("Model loading failed", e);
+			}
+
+			SimulatorPreinitializationInfo preinitializationInfo = loader.getSimulatorPreinitializationInfo();
+			if (eventSchedulerType != null)
+				preinitializationInfo.eventSchedulerType = eventSchedulerType;
+
+			SerializationObjectsNames.set(new ArrayList<String>());
+			CurrentSimulator.set(new Simulator());
+			CurrentSimulator.preinitialize(preinitializationInfo);
+
+			try {
+				loader.postprocess();
+			} catch (ReflectiveOperationException e) {
+				throw new HeadlessRunnerException("Model postprocessing failed", e);
+			}
+
+			SimulatorInitializationInfo initializationInfo = loader.getSimulatorInitializationInfo();
+			initializationInfo.coalesceNotifications = true;
+			CurrentSimulator.initialize(initializationInfo);
+
+			final long simulationStartTime = System.nanoTime();
+			SimulationStopCode stopCode;
+
+			try {
+				stopCode = CurrentSimulator.run();
+			} catch (Throwable e) {
+				CurrentSimulator.notifyError();
+				throw e;
+			}
+
+			final long simulationEndTime = System.nanoTime();
+
+			List<JSONObject> results = new ArrayList<>();
+			for (AbstractResult<?> result : CurrentSimulator.getResults())
+				results.add(result.getData());
+
+			return new RunResult(masterSeed, stopCode, results, simulationStartTime - startTime,
+					simulationEndTime - simulationStartTime);
+		} finally {
+			CurrentSimulator.unbindContext();
+			loader.closeClassLoader();
+		}
+	}
+}
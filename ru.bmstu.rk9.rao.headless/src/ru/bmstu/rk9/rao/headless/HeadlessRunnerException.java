@@ -0,0 +1,12 @@
+package ru.bmstu.rk9.rao.headless;
+
+@SuppressWarnings("serial")
+public class HeadlessRunnerException extends RuntimeException {
+	public HeadlessRunnerException(String exceptionMessage) {
+		super(exceptionMessage);
+	}
+
+	public HeadlessRunnerException(String exceptionMessage, Throwable cause) {
+		super(exceptionMessage, cause);
+	}
+}
@@ -0,0 +1,216 @@
+package ru.bmstu.rk9.rao.headless;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import ru.bmstu.rk9.rao.headless.ExperimentRunner.Experiment;
+import ru.bmstu.rk9.rao.headless.ReplicationsRunner.Replications;
+import ru.bmstu.rk9.rao.lib.event.EventSchedulerType;
+import ru.bmstu.rk9.rao.lib.exception.RaoLibException;
+
+public class Main {
+	private static final String USAGE = String.join(System.lineSeparator(),
+			"Usage: java -cp <rao.lib and rao.headless jars> ru.bmstu.rk9.rao.headless.Main <model classes> [options]",
+			"  <model classes>         directory or jar with compiled model (bin/ folder of Rao project)",
+			"  -m, --model <class>     model class to run, all top level classes by default",
+			"  -n, --runs <count>      number of replications, 1 by default",
+			"  -j, --parallel <count>  number of replications run at once, number of processors by default",
+			"  --seed <seed>           master seed, seeds of model sequences are derived from it per replication",
+			"  --confidence <level>    confidence level of intervals over replications, 0.95 by default",
+			"  --json <file>           write results and their summary as JSON",
+			"  --csv <file>            write results as CSV",
+			"  --summary-csv <file>    write summary over replications as CSV",
+			"  --event-scheduler <heap|calendar>",
+			"                          event queue implementation, the one set in project settings by default",
+			"Experiments over model constants, every point is run for the given number of replications:",
+			"  -p, --parameter <name>=<value>[,<value>...]",
+			"                          values of a constant, points form a full grid over all given constants",
+			"  --lhs <name>=<low>..<high>",
+			"                          range of a constant to draw Latin hypercube sample from",
+			"  --samples <count>       number of Latin hypercube points, 10 by default",
+			"  --cache <directory>     reuse results of runs already made with the same model, values and seed",
+			"  --json <file>           write summary of every point as JSON",
+			"  --csv <file>            write summary of every point as one table",
+			"Results are written to standard output if no file is given, as JSON or as table for experiments.");
+
+	public static void main(String[] args) throws IOException {
+		final long startupMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+
+		Path modelPath = null;
+		List<String> modelClassNames = new ArrayList<>();
+		int numberOfRuns = 1;
+		int parallelism = Runtime.getRuntime().availableProcessors();
+		Long masterSeed = null;
+		double confidenceLevel = ReplicationsRunner.DEFAULT_CONFIDENCE_LEVEL;
+		Path jsonPath = null;
+		Path csvPath = null;
+		Path summaryCsvPath = null;
+		Map<String, List<String>> levels = new LinkedHashMap<>();
+		Map<String, ExperimentDesign.Range> ranges = new LinkedHashMap<>();
+		int numberOfSamples = 10;
+		Path cachePath = null;
+		EventSchedulerType eventSchedulerType = null;
+
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+				case "-m":
+				case "--model":
+					modelClassNames.add(args[++i]);
+					break;
+				case "-n":
+				case "--runs":
+					numberOfRuns = Integer.parseInt(args[++i]);
+					break;
+				case "-j":
+				case "--parallel":
+					parallelism = Integer.parseInt(args[++i]);
+					break;
+				case "--seed":
+					masterSeed = Long.parseLong(args[++i]);
+					break;
+				case "--confidence":
+					confidenceLevel = Double.parseDouble(args[++i]);
+					break;
+				case "--json":
+					jsonPath = Paths.get(args[++i]);
+					break;
+				case "--csv":
+					csvPath = Paths.get(args[++i]);
+					break;
+				case "--summary-csv":
+					summaryCsvPath = Paths.get(args[++i]);
+					break;
+				case "-p":
+				case "--parameter": {
+					String[] parameter = splitParameter(args[++i]);
+					levels.put(parameter[0], Arrays.asList(parameter[1].split(",")));
+					break;
+				}
+				case "--lhs": {
+					String[] parameter = splitParameter(args[++i]);
+					ranges.put(parameter[0], ExperimentDesign.Range.parse(parameter[1]));
+					break;
+				}
+				case "--samples":
+					numberOfSamples = Integer.parseInt(args[++i]);
+					break;
+				case "--cache":
+					cachePath = Paths.get(args[++i]);
+					break;
+				case "--event-scheduler":
+					eventSchedulerType = EventSchedulerType.getByName(args[++i]);
+					break;
+				default:
+					if (modelPath != null || args[i].startsWith("-"))
+						throw new IllegalArgumentException(args[i]);
+					modelPath = Paths.get(args[i]);
+				}
+			}
+		} catch (IndexOutOfBoundsException | IllegalArgumentException | HeadlessRunnerException
+				| RaoLibException e) {
+			modelPath = null;
+		}
+
+		if (modelPath == null || numberOfRuns < 1 || parallelism < 1 || confidenceLevel <= 0
+				|| confidenceLevel >= 1 || numberOfSamples < 1 || (!levels.isEmpty() && !ranges.isEmpty())) {
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		HeadlessRunner runner = new HeadlessRunner(modelPath, modelClassNames, eventSchedulerType);
+
+		if (!levels.isEmpty() || !ranges.isEmpty()) {
+			ExperimentDesign design = !levels.isEmpty() ? ExperimentDesign.grid(levels)
+					: ExperimentDesign.latinHypercube(ranges, numberOfSamples, masterSeed != null ? masterSeed : 0);
+			ResultCache cache = cachePath != null ? new ResultCache(cachePath, modelPath, modelClassNames) : null;
+
+			Experiment experiment = new ExperimentRunner(runner, parallelism, cache).run(design, numberOfRuns,
+					masterSeed, confidenceLevel);
+
+			int numberOfRunsTotal = design.getPoints().size() * numberOfRuns;
+			System.err.println("JVM startup: " + startupMillis + "ms");
+			System.err.println("Experiment: " + design.getPoints().size() + " points, "
+					+ (numberOfRunsTotal - experiment.getNumberOfCachedRuns()) + " runs made, "
+					+ experiment.getNumberOfCachedRuns() + " taken from cache, "
+					+ TimeUnit.NANOSECONDS.toMillis(experiment.getElapsedNanos()) + "ms on " + parallelism
+					+ " threads");
+
+			if (jsonPath != null) {
+				try (Writer writer = Files.newBufferedWriter(jsonPath, StandardCharsets.UTF_8)) {
+					ResultsWriter.writeExperimentJson(experiment, writer);
+				}
+			}
+
+			if (csvPath != null) {
+				try (Writer writer = Files.newBufferedWriter(csvPath, StandardCharsets.UTF_8)) {
+					ResultsWriter.writeExperimentCsv(experiment, writer);
+				}
+			}
+
+			if (jsonPath == null && csvPath == null)
+				ResultsWriter.writeExperimentCsv(experiment,
+						new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+			return;
+		}
+
+		Replications replications = new ReplicationsRunner(runner, parallelism).run(numberOfRuns, masterSeed,
+				confidenceLevel);
+		List<RunResult> runs = replications.getRuns();
+
+		for (int i = 0; i < runs.size(); i++) {
+			RunResult run = runs.get(i);
+			System.err.println("Run " + i + ": " + run.getStopCode() + ", setup "
+					+ TimeUnit.NANOSECONDS.toMillis(run.getSetupNanos()) + "ms, simulation "
+					+ TimeUnit.NANOSECONDS.toMillis(run.getSimulationNanos()) + "ms");
+		}
+
+		System.err.println("JVM startup: " + startupMillis + "ms");
+		System.err.println("Mean setup per run: " + TimeUnit.NANOSECONDS
+				.toMillis((long) runs.stream().mapToLong(RunResult::getSetupNanos).average().getAsDouble()) + "ms");
+		System.err.println("Replications: " + runs.size() + " in "
+				+ TimeUnit.NANOSECONDS.toMillis(replications.getElapsedNanos()) + "ms on " + parallelism
+				+ " threads, " + String.format("%.2f", replications.getThroughput()) + " per second");
+
+		if (jsonPath != null) {
+			try (Writer writer = Files.newBufferedWriter(jsonPath, StandardCharsets.UTF_8)) {
+				ResultsWriter.writeJson(replications, writer);
+			}
+		}
+
+		if (csvPath != null) {
+			try (Writer writer = Files.newBufferedWriter(csvPath, StandardCharsets.UTF_8)) {
+				ResultsWriter.writeCsv(runs, writer);
+			}
+		}
+
+		if (summaryCsvPath != null) {
+			try (Writer writer = Files.newBufferedWriter(summaryCsvPath, StandardCharsets.UTF_8)) {
+				ResultsWriter.writeSummaryCsv(replications.getStatistics(), writer);
+			}
+		}
+
+		if (jsonPath == null && csvPath == null && summaryCsvPath == null)
+			ResultsWriter.writeJson(replications, new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+	}
+
+	private static final String[] splitParameter(String parameter) {
+		int separator = parameter.indexOf('=');
+		if (separator <= 0)
+			throw new IllegalArgumentException(parameter);
+
+		return new String[] { parameter.substring(0, separator), parameter.substring(separator + 1) };
+	}
+}
@@ -0,0 +1,223 @@
+package ru.bmstu.rk9.rao.headless;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Supplier;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import ru.bmstu.rk9.rao.lib.dpt.AbstractDecisionPoint;
+import ru.bmstu.rk9.rao.lib.dpt.Logic;
+import ru.bmstu.rk9.rao.lib.dpt.Search;
+import ru.bmstu.rk9.rao.lib.event.EventSchedulerType;
+import ru.bmstu.rk9.rao.lib.modeldata.ModelStructureConstants;
+import ru.bmstu.rk9.rao.lib.naming.NamingHelper;
+import ru.bmstu.rk9.rao.lib.pattern.Pattern;
+import ru.bmstu.rk9.rao.lib.resource.ComparableResource;
+import ru.bmstu.rk9.rao.lib.result.AbstractResult;
+import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator;
+import ru.bmstu.rk9.rao.lib.simulator.SimulatorInitializationInfo;
+import ru.bmstu.rk9.rao.lib.simulator.SimulatorPreinitializationInfo;
+
+/*
+ * Loads compiled model classes the same way ModelInternalsParser does, but
+ * relying on reflection only, so neither the workspace nor the Xtext resource
+ * set is needed. Model structure is left as a stub, which is enough because
+ * headless runs do not collect trace. Process blocks described in .proc files
+ * are not supported, as converting them requires the graphical editor.
+ */
+public class ModelLoader {
+	private final SimulatorPreinitializationInfo simulatorPreinitializationInfo = new SimulatorPreinitializationInfo();
+	private final SimulatorInitializationInfo simulatorInitializationInfo = new SimulatorInitializationInfo();
+	private final List<Class<?>> decisionPointClasses = new ArrayList<>();
+	private final List<Field> resultFields = new ArrayList<>();
+
+	private final Path modelPath;
+	private final List<String> modelClassNames;
+	private URLClassLoader classLoader;
+
+	public ModelLoader(Path modelPath, List<String> modelClassNames) {
+		this.modelPath = modelPath;
+		this.modelClassNames = modelClassNames;
+	}
+
+	public final SimulatorPreinitializationInfo getSimulatorPreinitializationInfo() {
+		return simulatorPreinitializationInfo;
+	}
+
+	public final SimulatorInitializationInfo getSimulatorInitializationInfo() {
+		return simulatorInitializationInfo;
+	}
+
+	public final void load() throws IOException, ClassNotFoundException, NoSuchMethodException,
+			InstantiationException, IllegalAccessException, InvocationTargetException {
+		URL[] urls = new URL[] { modelPath.toUri().toURL() };
+		classLoader = new URLClassLoader(urls, CurrentSimulator.class.getClassLoader());
+
+		List<String> classNames = modelClassNames.isEmpty() ? findModelClassNames() : modelClassNames;
+		if (classNames.isEmpty())
+			throw new HeadlessRunnerException("No model classes found in " + modelPath);
+
+		String modelName = classNames.get(0);
+		if (modelName.contains("."))
+			modelName = modelName.substring(0, modelName.lastIndexOf('.'));
+
+		simulatorPreinitializationInfo.modelStructure.put(ModelStructureConstants.NAME, modelName);
+		simulatorPreinitializationInfo.modelStructure.put(ModelStructureConstants.NUMBER_OF_MODELS,
+				classNames.size());
+		simulatorPreinitializationInfo.modelStructure.put(ModelStructureConstants.LOCATION, modelPath.toString());
+
+		String eventScheduler = readProjectSetting("EventScheduler");
+		if (eventScheduler != null)
+			simulatorPreinitializationInfo.eventSchedulerType = EventSchedulerType.getByName(eventScheduler);
+
+		for (String className : classNames)
+			loadModel(className);
+	}
+
+	@SuppressWarnings("unchecked")
+	private final void loadModel(String modelClassName) throws ClassNotFoundException, NoSuchMethodException,
+			InstantiationException, IllegalAccessException, InvocationTargetException {
+		Class<?> modelClass = Class.forName(modelClassName, false, classLoader);
+
+		Object init = createNested(modelClassName + "$init");
+		if (init != null)
+			simulatorInitializationInfo.initList.add((Runnable) init);
+
+		Object terminateCondition = createNested(modelClassName + "$terminateCondition");
+		if (terminateCondition != null)
+			simulatorInitializationInfo.terminateConditions.add((Supplier<Boolean>) terminateCondition);
+
+		Object resourcesPreinitializer = createNested(modelClassName + "$resourcesPreinitializer");
+		if (resourcesPreinitializer != null)
+			simulatorPreinitializationInfo.resourcePreinitializers.add((Runnable) resourcesPreinitializer);
+
+		for (Class<?> nestedModelClass : modelClass.getDeclaredClasses()) {
+			if (ComparableResource.class.isAssignableFrom(nestedModelClass)) {
+				simulatorPreinitializationInfo.resourceClasses.add(nestedModelClass);
+				continue;
+			}
+
+			if (Logic.class.isAssignableFrom(nestedModelClass) || Search.class.isAssignableFrom(nestedModelClass)) {
+				decisionPointClasses.add(nestedModelClass);
+				continue;
+			}
+
+			if (Pattern.class.isAssignableFrom(nestedModelClass)) {
+				// Same workaround as in ModelInternalsParser, makes nested
+				// classes of patterns get into classloader
+				nestedModelClass.getDeclaredClasses();
+				continue;
+			}
+		}
+
+		for (Field field : modelClass.getDeclaredFields()) {
+			if (AbstractResult.class.isAssignableFrom(field.getType()))
+				resultFields.add(field);
+		}
+	}
+
+	private final Object createNested(String className) throws NoSuchMethodException, InstantiationException,
+			IllegalAccessException, InvocationTargetException {
+		Class<?> nestedClass;
+		try {
+			nestedClass = Class.forName(className, false, classLoader);
+		} catch (ClassNotFoundException classException) {
+			return null;
+		}
+
+		Constructor<?> constructor = nestedClass.getDeclaredConstructor();
+		constructor.setAccessible(true);
+		return constructor.newInstance();
+	}
+
+	public final void postprocess() throws IllegalAccessException, InstantiationException {
+		for (Field resultField : resultFields) {
+			resultField.setAccessible(true);
+			AbstractResult<?> result = (AbstractResult<?>) resultField.get(null);
+
+			String name = NamingHelper.createFullNameForMember(resultField);
+			result.setName(name);
+			simulatorInitializationInfo.results.add(result);
+		}
+
+		for (Class<?> decisionPointClass : decisionPointClasses) {
+			AbstractDecisionPoint dpt = (AbstractDecisionPoint) decisionPointClass.newInstance();
+			simulatorInitializationInfo.decisionPoints.add(dpt);
+		}
+	}
+
+	public final void closeClassLoader() {
+		if (classLoader != null) {
+			try {
+				classLoader.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	// Settings written by the IDE into project of the model, which is the
+	// parent of its bin/ folder, see ModelInternalsParser
+	private final String readProjectSetting(String key) throws IOException {
+		if (!Files.isDirectory(modelPath))
+			return null;
+
+		Path projectPath = modelPath.toAbsolutePath().normalize().getParent();
+		if (projectPath == null)
+			return null;
+
+		Path settingsPath = projectPath.resolve(".settings").resolve("ru.bmstu.rk9.rao.ui.prefs");
+		if (!Files.isRegularFile(settingsPath))
+			return null;
+
+		Properties settings = new Properties();
+		try (InputStream stream = Files.newInputStream(settingsPath)) {
+			settings.load(stream);
+		}
+
+		return settings.getProperty(key);
+	}
+
+	// Every top level class compiled from Rao sources is a model class
+	private final List<String> findModelClassNames() throws IOException {
+		List<String> classFiles = new ArrayList<>();
+
+		if (Files.isDirectory(modelPath)) {
+			try (Stream<Path> paths = Files.walk(modelPath)) {
+				classFiles.addAll(paths.filter(Files::isRegularFile).map(path -> modelPath.relativize(path).toString())
+						.collect(Collectors.toList()));
+			}
+		} else {
+			try (JarFile jarFile = new JarFile(modelPath.toFile())) {
+				Enumeration<JarEntry> entries = jarFile.entries();
+				while (entries.hasMoreElements())
+					classFiles.add(entries.nextElement().getName());
+			}
+		}
+
+		List<String> classNames = new ArrayList<>();
+		for (String classFile : classFiles) {
+			if (!classFile.endsWith(".class") || classFile.contains("$"))
+				continue;
+
+			String className = classFile.substring(0, classFile.length() - ".class".length());
+			classNames.add(className.replace('\\', '/').replace('/', '.'));
+		}
+
+		classNames.sort(null);
+		return classNames;
+	}
+}
@@ -0,0 +1,91 @@
+package ru.bmstu.rk9.rao.headless;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import ru.bmstu.rk9.rao.lib.result.ReplicationStatistics;
+
+public class ReplicationsRunner {
+	public static final double DEFAULT_CONFIDENCE_LEVEL = 0.95;
+
+	public ReplicationsRunner(HeadlessRunner runner, int parallelism) {
+		this.runner = runner;
+		this.parallelism = parallelism;
+	}
+
+	private final HeadlessRunner runner;
+	private final int parallelism;
+
+	public static class Replications {
+		Replications(List<RunResult> runs, ReplicationStatistics statistics, long elapsedNanos) {
+			this.runs = runs;
+			this.statistics = statistics;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		private final List<RunResult> runs;
+		private final ReplicationStatistics statistics;
+		private final long elapsedNanos;
+
+		public final List<RunResult> getRuns() {
+			return runs;
+		}
+
+		public final ReplicationStatistics getStatistics() {
+			return statistics;
+		}
+
+		public final long getElapsedNanos() {
+			return elapsedNanos;
+		}
+
+		public final double getThroughput() {
+			return runs.size() / (elapsedNanos / 1e9);
+		}
+	}
+
+	// Seeds of replications are drawn from master stream before any of them
+	// starts, so results do not depend on order in which replications finish.
+	// Null master seed runs every replication with seeds written in model
+	static final List<Long> drawSeeds(int numberOfReplications, Long masterSeed) {
+		List<Long> seeds = new ArrayList<>();
+		SplittableRandom masterStream = masterSeed != null ? new SplittableRandom(masterSeed) : null;
+		for (int i = 0; i < numberOfReplications; i++)
+			seeds.add(masterStream != null ? masterStream.nextLong() : null);
+
+		return seeds;
+	}
+
+	public final Replications run(int numberOfReplications, Long masterSeed, double confidenceLevel) {
+		List<Long> seeds = drawSeeds(numberOfReplications, masterSeed);
+		ReplicationStatistics statistics = new ReplicationStatistics(confidenceLevel);
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		final long startTime = System.nanoTime();
+
+		try {
+			List<Future<RunResult>> futures = new ArrayList<>();
+			for (Long seed : seeds)
+				futures.add(pool.submit(() -> runner.run(seed)));
+
+			List<RunResult> runs = new ArrayList<>();
+			for (Future<RunResult> future : futures) {
+				RunResult run = future.get();
+				statistics.addReplication(run.getResults());
+				runs.add(run);
+			}
+
+			return new Replications(runs, statistics, System.nanoTime() - startTime);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new HeadlessRunnerException("Replications were interrupted", e);
+		} catch (ExecutionException e) {
+			throw new HeadlessRunnerException("Replication failed", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
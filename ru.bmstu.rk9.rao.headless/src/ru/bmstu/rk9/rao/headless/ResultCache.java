@@ -0,0 +1,203 @@
+package ru.bmstu.rk9.rao.headless;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.net.URISyntaxException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import ru.bmstu.rk9.rao.lib.json.JSONArray;
+import ru.bmstu.rk9.rao.lib.json.JSONException;
+import ru.bmstu.rk9.rao.lib.json.JSONObject;
+import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator.SimulationStopCode;
+import ru.bmstu.rk9.rao.lib.simulator.Simulator;
+
+/*
+ * On-disk cache of run results keyed by hash of compiled model classes,
+ * library classes, Java version, parameter values and master seed, one JSON
+ * file per run. Rebuilding the model or the library changes the hash, so
+ * stale results are never picked up. Files are
+ * written to a temporary file first and then moved, so concurrent sweeps
+ * sharing a cache directory never see partially written results.
+ */
+public class ResultCache {
+	private static final String STOP_CODE = "stop_code";
+	private static final String SETUP_TIME = "setup_time_ns";
+	private static final String SIMULATION_TIME = "simulation_time_ns";
+	private static final String RESULTS = "results";
+
+	public ResultCache(Path directory, Path modelPath, List<String> modelClassNames) throws IOException {
+		this.directory = directory;
+
+		MessageDigest digest = createDigest();
+		updateWithFiles(digest, modelPath);
+		for (String modelClassName : modelClassNames)
+			update(digest, modelClassName);
+		updateWithLibrary(digest);
+		this.modelHash = toHex(digest.digest());
+
+		Files.createDirectories(directory);
+	}
+
+	private final Path directory;
+	private final String modelHash;
+
+	public final String getModelHash() {
+		return modelHash;
+	}
+
+	// Returns null if there is no result for the key or it cannot be read
+	public final RunResult get(Map<String, String> parameterValues, Long masterSeed) {
+		Path path = resultPath(parameterValues, masterSeed);
+
+		String content;
+		try {
+			content = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			return null;
+		}
+
+		try {
+			JSONObject data = new JSONObject(content);
+
+			List<JSONObject> results = new ArrayList<>();
+			JSONArray resultsData = data.getJSONArray(RESULTS);
+			for (int i = 0; i < resultsData.length(); i++)
+				results.add(resultsData.getJSONObject(i));
+
+			return new RunResult(masterSeed, SimulationStopCode.valueOf(data.getString(STOP_CODE)), results,
+					data.getLong(SETUP_TIME), data.getLong(SIMULATION_TIME));
+		} catch (JSONException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	public final void put(Map<String, String> parameterValues, Long masterSeed, RunResult run) throws IOException {
+		JSONArray results = new JSONArray();
+		for (JSONObject result : run.getResults())
+			results.put(result);
+
+		JSONObject data = new JSONObject().put(STOP_CODE, run.getStopCode().toString())
+				.put(SETUP_TIME, run.getSetupNanos()).put(SIMULATION_TIME, run.getSimulationNanos())
+				.put(RESULTS, results);
+
+		Path path = resultPath(parameterValues, masterSeed);
+		Path temporaryPath = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+		try {
+			Files.write(temporaryPath, data.toString().getBytes(StandardCharsets.UTF_8));
+			try {
+				Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temporaryPath);
+		}
+	}
+
+	private final Path resultPath(Map<String, String> parameterValues, Long masterSeed) {
+		MessageDigest digest = createDigest();
+		update(digest, modelHash);
+		for (Map.Entry<String, String> parameter : new TreeMap<>(parameterValues).entrySet()) {
+			update(digest, parameter.getKey());
+			update(digest, parameter.getValue());
+		}
+		update(digest, String.valueOf(masterSeed));
+
+		return directory.resolve(toHex(digest.digest()) + ".json");
+	}
+
+	// Hash covers names and contents of all files, so that it does not depend
+	// on whether the model is given as a directory or as a jar
+	private static final void updateWithFiles(MessageDigest digest, Path modelPath) throws IOException {
+		if (Files.isDirectory(modelPath)) {
+			List<String> fileNames;
+			try (Stream<Path> paths = Files.walk(modelPath)) {
+				fileNames = paths.filter(Files::isRegularFile)
+						.map(path -> modelPath.relativize(path).toString().replace('\\', '/')).sorted()
+						.collect(Collectors.toList());
+			}
+
+			for (String fileName : fileNames) {
+				update(digest, fileName);
+				digest.update(Files.readAllBytes(modelPath.resolve(fileName)));
+			}
+		} else {
+			try (JarFile jarFile = new JarFile(modelPath.toFile())) {
+				List<JarEntry> entries = new ArrayList<>();
+				Enumeration<JarEntry> jarEntries = jarFile.entries();
+				while (jarEntries.hasMoreElements()) {
+					JarEntry entry = jarEntries.nextElement();
+					if (!entry.isDirectory())
+						entries.add(entry);
+				}
+				entries.sort((x, y) -> x.getName().compareTo(y.getName()));
+
+				byte[] buffer = new byte[8192];
+				for (JarEntry entry : entries) {
+					update(digest, entry.getName());
+					try (InputStream stream = jarFile.getInputStream(entry)) {
+						int read;
+						while ((read = stream.read(buffer)) != -1)
+							digest.update(buffer, 0, read);
+					}
+				}
+			}
+		}
+	}
+
+	private static final void updateWithLibrary(MessageDigest digest) throws IOException {
+		update(digest, System.getProperty("java.version"));
+
+		CodeSource source = Simulator.class.getProtectionDomain().getCodeSource();
+		if (source == null)
+			throw new HeadlessRunnerException("Cannot locate Rao library classes");
+
+		try {
+			updateWithFiles(digest, Paths.get(source.getLocation().toURI()));
+		} catch (URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e) {
+			throw new HeadlessRunnerException("Cannot locate Rao library classes", e);
+		}
+	}
+
+	// Strings are length-prefixed, so that different keys never concatenate
+	// into the same input
+	private static final void update(MessageDigest digest, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		digest.update(new byte[] { (byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16),
+				(byte) (bytes.length >>> 8), (byte) bytes.length });
+		digest.update(bytes);
+	}
+
+	private static final MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new HeadlessRunnerException("SHA-256 is not available", e);
+		}
+	}
+
+	private static final String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder();
+		for (byte b : bytes)
+			hex.append(String.format("%02x", b));
+		return hex.toString();
+	}
+}
@@ -0,0 +1,185 @@
+package ru.bmstu.rk9.rao.headless;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import ru.bmstu.rk9.rao.headless.ExperimentRunner.Experiment;
+import ru.bmstu.rk9.rao.headless.ExperimentRunner.Point;
+import ru.bmstu.rk9.rao.headless.ReplicationsRunner.Replications;
+import ru.bmstu.rk9.rao.lib.json.JSONArray;
+import ru.bmstu.rk9.rao.lib.json.JSONObject;
+import ru.bmstu.rk9.rao.lib.result.ReplicationStatistics;
+
+public class ResultsWriter {
+	public static final String RUNS = "runs";
+	public static final String RUN = "run";
+	public static final String SEED = "seed";
+	public static final String STOP_CODE = "stop_code";
+	public static final String SETUP_TIME = "setup_time_ms";
+	public static final String SIMULATION_TIME = "simulation_time_ms";
+	public static final String RESULTS = "results";
+	public static final String NAME = "name";
+	public static final String SUMMARY = "summary";
+	public static final String CONFIDENCE_LEVEL = "confidence_level";
+	public static final String ELAPSED_TIME = "elapsed_time_ms";
+	public static final String THROUGHPUT = "replications_per_second";
+	public static final String POINTS = "points";
+	public static final String POINT = "point";
+	public static final String PARAMETERS = "parameters";
+	public static final String CACHED_RUNS = "cached_runs";
+
+	public static final void writeJson(Replications replications, Writer writer) {
+		List<RunResult> runs = replications.getRuns();
+		JSONArray runsData = new JSONArray();
+
+		for (int i = 0; i < runs.size(); i++) {
+			RunResult run = runs.get(i);
+
+			JSONArray results = new JSONArray();
+			for (JSONObject result : run.getResults())
+				results.put(result);
+
+			JSONObject runData = new JSONObject().put(RUN, i).put(STOP_CODE, run.getStopCode().toString())
+					.put(SETUP_TIME, TimeUnit.NANOSECONDS.toMillis(run.getSetupNanos()))
+					.put(SIMULATION_TIME, TimeUnit.NANOSECONDS.toMillis(run.getSimulationNanos()))
+					.put(RESULTS, results);
+			if (run.getMasterSeed() != null)
+				runData.put(SEED, run.getMasterSeed().longValue());
+
+			runsData.put(runData);
+		}
+
+		JSONObject data = new JSONObject().put(RUNS, runsData)
+				.put(SUMMARY, replications.getStatistics().getData())
+				.put(CONFIDENCE_LEVEL, replications.getStatistics().getConfidenceLevel())
+				.put(ELAPSED_TIME, TimeUnit.NANOSECONDS.toMillis(replications.getElapsedNanos()))
+				.put(THROUGHPUT, replications.getThroughput());
+
+		PrintWriter printWriter = new PrintWriter(writer);
+		printWriter.println(data.toString(2));
+		printWriter.flush();
+	}
+
+	// One line per result statistic, so that runs of models with different
+	// kinds of results still fit into one table
+	public static final void writeCsv(List<RunResult> runs, Writer writer) {
+		PrintWriter printWriter = new PrintWriter(writer);
+		printWriter.println(String.join(",", RUN, SEED, STOP_CODE, "result", "statistic", "value"));
+
+		for (int i = 0; i < runs.size(); i++) {
+			RunResult run = runs.get(i);
+			String seed = run.getMasterSeed() != null ? run.getMasterSeed().toString() : "";
+
+			for (JSONObject result : run.getResults()) {
+				List<String> statistics = new ArrayList<>(result.keySet());
+				statistics.remove(NAME);
+				statistics.sort(null);
+
+				for (String statistic : statistics) {
+					printWriter.println(String.join(",", String.valueOf(i), seed, run.getStopCode().toString(),
+							escapeCsv(result.optString(NAME)), escapeCsv(statistic),
+							escapeCsv(String.valueOf(result.get(statistic)))));
+				}
+			}
+		}
+
+		printWriter.flush();
+	}
+
+	public static final void writeSummaryCsv(ReplicationStatistics statistics, Writer writer) {
+		PrintWriter printWriter = new PrintWriter(writer);
+		printWriter.println(String.join(",", SUMMARY_COLUMNS));
+		writeSummaryRows(statistics, "", printWriter);
+		printWriter.flush();
+	}
+
+	// Consolidated table of an experiment, one line per result statistic of
+	// every point, with values of parameters of the point in front of it
+	public static final void writeExperimentCsv(Experiment experiment, Writer writer) {
+		List<String> parameterNames = experiment.getDesign().getParameterNames();
+
+		List<String> header = new ArrayList<>();
+		header.add(POINT);
+		for (String parameterName : parameterNames)
+			header.add(escapeCsv(parameterName));
+		header.addAll(SUMMARY_COLUMNS);
+
+		PrintWriter printWriter = new PrintWriter(writer);
+		printWriter.println(String.join(",", header));
+
+		List<Point> points = experiment.getPoints();
+		for (int i = 0; i < points.size(); i++) {
+			StringBuilder prefix = new StringBuilder().append(i).append(",");
+			for (String parameterName : parameterNames)
+				prefix.append(escapeCsv(points.get(i).getParameterValues().get(parameterName))).append(",");
+
+			writeSummaryRows(points.get(i).getStatistics(), prefix.toString(), printWriter);
+		}
+
+		printWriter.flush();
+	}
+
+	public static final void writeExperimentJson(Experiment experiment, Writer writer) {
+		JSONArray pointsData = new JSONArray();
+
+		List<Point> points = experiment.getPoints();
+		for (int i = 0; i < points.size(); i++) {
+			Point point = points.get(i);
+
+			JSONObject parameters = new JSONObject();
+			for (Map.Entry<String, String> parameter : point.getParameterValues().entrySet())
+				parameters.put(parameter.getKey(), parameter.getValue());
+
+			pointsData.put(new JSONObject().put(POINT, i).put(PARAMETERS, parameters)
+					.put(SUMMARY, point.getStatistics().getData()));
+		}
+
+		int numberOfRuns = points.isEmpty() ? 0 : points.size() * points.get(0).getRuns().size();
+		JSONObject data = new JSONObject().put(POINTS, pointsData).put(RUNS, numberOfRuns)
+				.put(CACHED_RUNS, experiment.getNumberOfCachedRuns())
+				.put(ELAPSED_TIME, TimeUnit.NANOSECONDS.toMillis(experiment.getElapsedNanos()));
+
+		PrintWriter printWriter = new PrintWriter(writer);
+		printWriter.println(data.toString(2));
+		printWriter.flush();
+	}
+
+	private static final List<String> SUMMARY_COLUMNS = Arrays.asList("result", "statistic",
+			ReplicationStatistics.REPLICATIONS, ReplicationStatistics.MEAN, ReplicationStatistics.STANDARD_DEVIATION,
+			ReplicationStatistics.CONFIDENCE_LOW, ReplicationStatistics.CONFIDENCE_HIGH);
+
+	private static final void writeSummaryRows(ReplicationStatistics statistics, String prefix,
+			PrintWriter printWriter) {
+		JSONArray data = statistics.getData();
+		for (int i = 0; i < data.length(); i++) {
+			JSONObject result = data.getJSONObject(i);
+			JSONObject resultStatistics = result.getJSONObject(ReplicationStatistics.STATISTICS);
+
+			List<String> names = new ArrayList<>(resultStatistics.keySet());
+			names.sort(null);
+
+			for (String name : names) {
+				JSONObject statistic = resultStatistics.getJSONObject(name);
+				printWriter.println(prefix + String.join(",",
+						escapeCsv(result.getString(ReplicationStatistics.NAME)), escapeCsv(name),
+						statistic.optString(ReplicationStatistics.REPLICATIONS),
+						statistic.optString(ReplicationStatistics.MEAN),
+						statistic.optString(ReplicationStatistics.STANDARD_DEVIATION),
+						statistic.optString(ReplicationStatistics.CONFIDENCE_LOW),
+						statistic.optString(ReplicationStatistics.CONFIDENCE_HIGH)));
+			}
+		}
+	}
+
+	private static final String escapeCsv(String value) {
+		if (!value.contains(",") && !value.contains("\"") && !value.contains("\n"))
+			return value;
+
+		return "\"" + value.replace("\"", "\"\"") + "\"";
+	}
+}
@@ -0,0 +1,45 @@
+package ru.bmstu.rk9.rao.headless;
+
+import java.util.List;
+
+import ru.bmstu.rk9.rao.lib.json.JSONObject;
+import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator.SimulationStopCode;
+
+public class RunResult {
+	RunResult(Long masterSeed, SimulationStopCode stopCode, List<JSONObject> results, long setupNanos,
+			long simulationNanos) {
+		this.masterSeed = masterSeed;
+		this.stopCode = stopCode;
+		this.results = results;
+		this.setupNanos = setupNanos;
+		this.simulationNanos = simulationNanos;
+	}
+
+	private final Long masterSeed;
+	private final SimulationStopCode stopCode;
+	private final List<JSONObject> results;
+	private final long setupNanos;
+	private final long simulationNanos;
+
+	public final Long getMasterSeed() {
+		return masterSeed;
+	}
+
+	public final SimulationStopCode getStopCode() {
+		return stopCode;
+	}
+
+	public final List<JSONObject> getResults() {
+		return results;
+	}
+
+	// Time spent on loading model classes and initializing simulator, which
+	// is the per run overhead of the runner itself
+	public final long getSetupNanos() {
+		return setupNanos;
+	}
+
+	public final long getSimulationNanos() {
+		return simulationNanos;
+	}
+}
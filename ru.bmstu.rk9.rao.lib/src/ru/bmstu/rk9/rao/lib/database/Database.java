@@ -320,15 +320,52 @@ public class Database {
 
 	private final Set<ResourceUniqueEntry> memorizedResourceEntries = new LinkedHashSet<ResourceUniqueEntry>();
 
+	// Threads applying search edges in parallel memorize entries apart from
+	// the simulation thread and hand them over to it, see Search
+	private final ThreadLocal<Set<ResourceUniqueEntry>> separatelyMemorizedResourceEntries = new ThreadLocal<Set<ResourceUniqueEntry>>();
+
+	private final Set<ResourceUniqueEntry> memorizedResourceEntries() {
+		final Set<ResourceUniqueEntry> entries = separatelyMemorizedResourceEntries.get();
+		return entries != null ? entries : memorizedResourceEntries;
+	}
+
+	public final void memorizeResourceEntriesSeparately(final boolean separately) {
+		if (separately)
+			separatelyMemorizedResourceEntries.set(new LinkedHashSet<ResourceUniqueEntry>());
+		else
+			separatelyMemorizedResourceEntries.remove();
+	}
+
+	public final List<ResourceUniqueEntry> takeMemorizedResourceEntries() {
+		final Set<ResourceUniqueEntry> entries = memorizedResourceEntries();
+		final List<ResourceUniqueEntry> taken = new ArrayList<ResourceUniqueEntry>(entries);
+		entries.clear();
+		return taken;
+	}
+
+	public final void memorizeResourceEntries(final List<ResourceUniqueEntry> entries) {
+		final Set<ResourceUniqueEntry> memorizedEntries = memorizedResourceEntries();
+		for (final ResourceUniqueEntry entry : entries) {
+			memorizedEntries.remove(entry);
+			memorizedEntries.add(entry);
+		}
+	}
+
 	public final void memorizeResourceEntry(final Resource resource, final ResourceEntryType updateType) {
 		final ResourceUniqueEntry entry = new ResourceUniqueEntry(resource, updateType);
-		memorizedResourceEntries.remove(entry);
-		memorizedResourceEntries.add(entry);
+		final Set<ResourceUniqueEntry> memorizedEntries = memorizedResourceEntries();
+		memorizedEntries.remove(entry);
+		memorizedEntries.add(entry);
+	}
+
+	public final boolean hasMemorizedResourceEntries() {
+		return !memorizedResourceEntries().isEmpty();
 	}
 
 	public final void addMemorizedResourceEntries(final String sender, final Rule.ExecutedFrom executedFrom,
 			String dptName) {
-		for (final ResourceUniqueEntry entry : memorizedResourceEntries) {
+		final Set<ResourceUniqueEntry> memorizedEntries = memorizedResourceEntries();
+		for (final ResourceUniqueEntry entry : memorizedEntries) {
 			final Resource resource = entry.resource;
 			final ResourceEntryType status = entry.status;
 			ResourceEntryType actualStatus;
@@ -341,7 +378,7 @@ public class Database {
 			CurrentSimulator.getDatabase().addResourceEntry(resource, actualStatus, sender, dptName);
 		}
 
-		memorizedResourceEntries.clear();
+		memorizedEntries.clear();
 	}
 
 	private final void addResourceEntry(final Resource resource, final ResourceEntryType status, final String sender,
@@ -1,16 +1,17 @@
 package ru.bmstu.rk9.rao.lib.database;
 
-import java.util.Collections;
 import java.util.List;
 
+import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator;
+
+// Names are kept in the simulator context of the calling thread, so that
+// simulators running concurrently trace their own objects
 public class SerializationObjectsNames {
 	static final List<String> get() {
-		return Collections.unmodifiableList(names);
+		return CurrentSimulator.getContext().getSerializationObjectsNames();
 	}
 
 	public static final void set(List<String> names) {
-		SerializationObjectsNames.names = names;
+		CurrentSimulator.getContext().setSerializationObjectsNames(names);
 	}
-
-	private static List<String> names;
-}
\ No newline at end of file
+}
@@ -2,15 +2,19 @@ package ru.bmstu.rk9.rao.lib.dpt;
 
 import java.util.function.Supplier;
 
+import ru.bmstu.rk9.rao.lib.pattern.MatchMemory;
+import ru.bmstu.rk9.rao.lib.pattern.Operation;
 import ru.bmstu.rk9.rao.lib.pattern.Pattern;
+import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator;
+import ru.bmstu.rk9.rao.lib.simulator.ModelState;
 
 public class Activity extends AbstractActivity {
 	public Activity(Supplier<? extends Pattern> patternFabric) {
-		this(patternFabric, () -> Double.MAX_VALUE);
+		this(patternFabric, Double.MAX_VALUE);
 	}
 
 	public Activity(Supplier<? extends Pattern> patternFabric, double priority) {
-		this(patternFabric, () -> priority);
+		this(patternFabric, PriorityOrder.constant(priority));
 	}
 
 	public Activity(Supplier<? extends Pattern> patternFabric, Supplier<Double> priority) {
@@ -22,16 +26,75 @@ public class Activity extends AbstractActivity {
 	private final Supplier<? extends Pattern> patternFabric;
 
 	public final boolean execute() {
+		ModelState modelState = CurrentSimulator.getModelState();
+		if (isUnchangedSinceFailure(modelState))
+			return false;
+
 		currentPattern = patternFabric.get();
 
+		if (!isMatchMemoryCreated) {
+			Class<?>[][] relevantReadResourceTypes = currentPattern.getRelevantReadResourceTypes();
+			if (relevantReadResourceTypes != null)
+				matchMemory = new MatchMemory(relevantReadResourceTypes);
+			isMatchMemoryCreated = true;
+		}
+		currentPattern.setMatchMemory(matchMemory);
+		if (currentPattern instanceof Operation)
+			((Operation) currentPattern).setEndEventPool(endEventPool);
+
 		if (currentPattern.selectRelevantResources()) {
+			failedState = null;
 			currentPattern.run();
 			return true;
 		}
 
+		// Pattern has already put back resources it has taken, so versions
+		// are recorded as they are after that
+		readResourceTypes = currentPattern.getReadResourceTypes();
+		if (readResourceTypes != null) {
+			failedState = modelState;
+			failedVersions = versionsOf(modelState);
+		}
+
 		return false;
 	}
 
+	private MatchMemory matchMemory = null;
+	private boolean isMatchMemoryCreated = false;
+	private final Operation.EndEventPool endEventPool = new Operation.EndEventPool();
+
+	// Selection of relevant resources is bound to fail again until one of the
+	// resource types it reads changes
+	private Class<?>[] readResourceTypes = null;
+	private ModelState failedState = null;
+	private long[] failedVersions = null;
+
+	private boolean isUnchangedSinceFailure(ModelState modelState) {
+		if (failedState != modelState) {
+			failedState = null;
+			return false;
+		}
+
+		for (int i = 0; i < readResourceTypes.length; i++) {
+			if (modelState.getVersion(readResourceTypes[i]) != failedVersions[2 * i]
+					|| modelState.getAccessibilityHash(readResourceTypes[i]) != failedVersions[2 * i + 1]) {
+				failedState = null;
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private long[] versionsOf(ModelState modelState) {
+		long[] versions = new long[2 * readResourceTypes.length];
+		for (int i = 0; i < readResourceTypes.length; i++) {
+			versions[2 * i] = modelState.getVersion(readResourceTypes[i]);
+			versions[2 * i + 1] = modelState.getAccessibilityHash(readResourceTypes[i]);
+		}
+		return versions;
+	}
+
 	@Override
 	public final Pattern getPattern() {
 		return currentPattern;
@@ -1,11 +1,7 @@
 package ru.bmstu.rk9.rao.lib.dpt;
 
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.EnumSet;
-import java.util.Iterator;
-import java.util.SortedSet;
-import java.util.TreeSet;
 
 import ru.bmstu.rk9.rao.lib.notification.Subscriber;
 import ru.bmstu.rk9.rao.lib.notification.Subscription.SubscriptionType;
@@ -16,11 +12,15 @@ public class DPTManager implements Subscriber {
 		CurrentSimulator.getExecutionStateNotifier().addSubscriber(this,
 				CurrentSimulator.ExecutionState.EXECUTION_ABORTED, EnumSet.of(SubscriptionType.ONE_SHOT));
 
-		this.decisionPoints = new TreeSet<AbstractDecisionPoint>(prioritizer);
-		this.decisionPoints.addAll(decisionPoints);
+		for (AbstractDecisionPoint decisionPoint : decisionPoints)
+			this.decisionPoints.add(decisionPoint);
 	}
 
-	private final SortedSet<AbstractDecisionPoint> decisionPoints;
+	// Unlike the order they used to be sorted in once on creation, priorities
+	// of top level decision points are evaluated on every scan, the same way
+	// priorities of nested ones and activities are
+	private final PriorityOrder<AbstractDecisionPoint> decisionPoints = new PriorityOrder<>(
+			AbstractDecisionPoint::getPriority);
 
 	volatile private boolean dptAllowed = true;
 
@@ -30,31 +30,14 @@ public class DPTManager implements Subscriber {
 	}
 
 	public boolean checkDPT() {
-		Iterator<AbstractDecisionPoint> dptIterator = decisionPoints.iterator();
+		for (AbstractDecisionPoint decisionPoint : decisionPoints.update()) {
+			if (!dptAllowed)
+				break;
 
-		while (dptIterator.hasNext() && dptAllowed)
-			if (dptIterator.next().check())
+			if (decisionPoint.check())
 				return true;
+		}
 
 		return false;
 	}
-
-	public static Comparator<AbstractDecisionPoint> prioritizer = new Comparator<AbstractDecisionPoint>() {
-		@Override
-		public int compare(AbstractDecisionPoint x, AbstractDecisionPoint y) {
-			if (x.getPriority() == null)
-				return 1;
-
-			if (y.getPriority() == null)
-				return -1;
-
-			if (x.getPriority().get() > y.getPriority().get())
-				return -1;
-
-			if (x.getPriority().get() <= y.getPriority().get())
-				return 1;
-
-			return 0;
-		}
-	};
 }
@@ -55,13 +55,19 @@ public class Edge extends AbstractActivity {
 		return false;
 	}
 
-	public final double calculateValue() {
-		return value.get();
+	// Same as check(), but hands the rule over instead of keeping it, so
+	// that the edge can be checked on different model states concurrently
+	public final Rule checkSeparately() {
+		Rule rule = ruleFabric.get();
+
+		if (rule.selectRelevantResources())
+			return rule;
+
+		return null;
 	}
 
-	public final Rule execute() {
-		currentRule.run();
-		return currentRule;
+	public final double calculateValue() {
+		return value.get();
 	}
 
 	@Override
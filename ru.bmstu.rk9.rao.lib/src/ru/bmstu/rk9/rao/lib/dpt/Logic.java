@@ -1,10 +1,7 @@
 package ru.bmstu.rk9.rao.lib.dpt;
 
-import java.util.Comparator;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.SortedSet;
-import java.util.TreeSet;
 import java.util.function.Supplier;
 
 import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator;
@@ -17,26 +14,7 @@ public abstract class Logic extends AbstractDecisionPoint {
 
 	protected abstract void initializeActivities();
 
-	private static Comparator<Activity> comparator = new Comparator<Activity>() {
-		@Override
-		public int compare(Activity x, Activity y) {
-			if (x.priority == null)
-				return 1;
-
-			if (y.priority == null)
-				return -1;
-
-			if (x.priority.get() > y.priority.get())
-				return -1;
-
-			if (x.priority.get() <= y.priority.get())
-				return 1;
-
-			return 0;
-		}
-	};
-
-	protected Supplier<Double> priority = () -> 0.0;
+	protected Supplier<Double> priority = PriorityOrder.constant(0.0);
 	protected Supplier<Boolean> condition = () -> true;
 	protected Logic parent = null;
 
@@ -44,18 +22,25 @@ public abstract class Logic extends AbstractDecisionPoint {
 
 	protected void addChild(AbstractDecisionPoint child) {
 		children.add(child);
+		decisionPoints = null;
 	}
 
-	private SortedSet<Activity> activities = new TreeSet<Activity>(comparator);
+	private final PriorityOrder<Activity> activities = new PriorityOrder<>(activity -> activity.priority);
+
+	// Children and the logic itself, which is checked after children of the
+	// same priority
+	private PriorityOrder<AbstractDecisionPoint> decisionPoints = null;
 
 	@Override
 	public boolean check() {
-		SortedSet<AbstractDecisionPoint> all = new TreeSet<AbstractDecisionPoint>(DPTManager.prioritizer);
-
-		all.addAll(children);
-		all.add(this);
+		if (decisionPoints == null) {
+			decisionPoints = new PriorityOrder<>(AbstractDecisionPoint::getPriority);
+			for (AbstractDecisionPoint child : children)
+				decisionPoints.add(child);
+			decisionPoints.add(this);
+		}
 
-		for (AbstractDecisionPoint decisionPoint : all)
+		for (AbstractDecisionPoint decisionPoint : decisionPoints.update())
 			if (decisionPoint == this) {
 				if (checkCurrent())
 					return true;
@@ -74,7 +59,7 @@ public abstract class Logic extends AbstractDecisionPoint {
 	}
 
 	private boolean checkActivities() {
-		for (Activity activity : activities)
+		for (Activity activity : activities.update())
 			if (activity.execute()) {
 				CurrentSimulator.getDatabase().addDecisionEntry(this, activity);
 				activity.getPattern().addResourceEntriesToDatabase(null, null);
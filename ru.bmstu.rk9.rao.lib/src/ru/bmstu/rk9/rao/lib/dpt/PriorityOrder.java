@@ -0,0 +1,122 @@
+package ru.bmstu.rk9.rao.lib.dpt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/*
+ * Items ordered by priority, highest first, with items that have no priority
+ * last and items of equal priority in the order they have been added in.
+ * Priorities are evaluated once per update, and items are sorted again only
+ * if some of them have changed since the last update. Once all priorities
+ * are known to be constant, updates do nothing at all.
+ */
+public final class PriorityOrder<T> {
+	public PriorityOrder(Function<T, Supplier<Double>> priorityOf) {
+		this.priorityOf = priorityOf;
+	}
+
+	private final Function<T, Supplier<Double>> priorityOf;
+
+	private final List<T> items = new ArrayList<>();
+	private double[] priorities = new double[0];
+	private int[] order = new int[0];
+	private final List<T> ordered = new ArrayList<>();
+	private final List<T> orderedView = Collections.unmodifiableList(ordered);
+
+	private boolean isStale = true;
+	private boolean isStatic = false;
+
+	public static Supplier<Double> constant(double priority) {
+		return new Constant(priority);
+	}
+
+	private static final class Constant implements Supplier<Double> {
+		Constant(double priority) {
+			this.priority = priority;
+		}
+
+		private final Double priority;
+
+		@Override
+		public Double get() {
+			return priority;
+		}
+	}
+
+	public final void add(T item) {
+		int index = items.size();
+		items.add(item);
+
+		priorities = Arrays.copyOf(priorities, index + 1);
+		order = Arrays.copyOf(order, index + 1);
+		order[index] = index;
+		isStale = true;
+	}
+
+	public final int size() {
+		return items.size();
+	}
+
+	public final List<T> update() {
+		if (isStatic && !isStale)
+			return orderedView;
+
+		boolean isChanged = isStale;
+		boolean isConstant = true;
+
+		for (int i = 0; i < priorities.length; i++) {
+			Supplier<Double> priority = priorityOf.apply(items.get(i));
+			isConstant &= priority == null || priority instanceof Constant;
+
+			Double value = priority == null ? null : priority.get();
+			if (value == null)
+				value = Double.NaN;
+			if (Double.compare(value, priorities[i]) != 0) {
+				priorities[i] = value;
+				isChanged = true;
+			}
+		}
+
+		if (isChanged)
+			sort();
+
+		isStale = false;
+		isStatic = isConstant;
+		return orderedView;
+	}
+
+	// Insertion sort starting with the previous order, which takes linear
+	// time as long as few priorities change
+	private void sort() {
+		for (int i = 1; i < order.length; i++) {
+			int index = order[i];
+			int j = i - 1;
+			for (; j >= 0 && precedes(index, order[j]); j--)
+				order[j + 1] = order[j];
+			order[j + 1] = index;
+		}
+
+		ordered.clear();
+		for (int index : order)
+			ordered.add(items.get(index));
+	}
+
+	private boolean precedes(int index, int other) {
+		double priority = priorities[index];
+		double priorityOther = priorities[other];
+
+		boolean hasPriority = !Double.isNaN(priority);
+		boolean hasPriorityOther = !Double.isNaN(priorityOther);
+		if (hasPriority != hasPriorityOther)
+			return hasPriority;
+
+		if (hasPriority && priority != priorityOther)
+			return priority > priorityOther;
+
+		return index < other;
+	}
+}
@@ -1,18 +1,25 @@
 package ru.bmstu.rk9.rao.lib.dpt;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.function.Supplier;
 
 import ru.bmstu.rk9.rao.lib.database.Database;
+import ru.bmstu.rk9.rao.lib.exception.RaoLibException;
 import ru.bmstu.rk9.rao.lib.notification.Subscriber;
 import ru.bmstu.rk9.rao.lib.notification.Subscription.SubscriptionType;
 import ru.bmstu.rk9.rao.lib.pattern.Pattern;
@@ -21,6 +28,7 @@ import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator;
 import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator.ExecutionState;
 import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator.SimulatorState;
 import ru.bmstu.rk9.rao.lib.simulator.ModelState;
+import ru.bmstu.rk9.rao.lib.simulator.SimulatorContext;
 
 public abstract class Search extends AbstractDecisionPoint {
 	public Search() {
@@ -37,6 +45,13 @@ public abstract class Search extends AbstractDecisionPoint {
 	protected Supplier<Boolean> startCondition;
 	protected Supplier<Double> heuristic;
 	protected Supplier<Boolean> terminateCondition;
+	// Threads applying edges of expanded node
+	protected int parallelism = 1;
+	protected SearchStrategy strategy = SearchStrategy.A_STAR;
+	// Maximum number of nodes kept in memory by SMA_STAR
+	protected int nodeBudget = 10000;
+	// Number of best nodes of each level kept by BEAM
+	protected int beamWidth = 100;
 	private Logic parent;
 
 	public Logic getParent() {
@@ -74,7 +89,7 @@ public abstract class Search extends AbstractDecisionPoint {
 
 	private volatile boolean allowSearch = false;
 
-	private List<Edge> edges = new LinkedList<Edge>();
+	private List<Edge> edges = new ArrayList<Edge>();
 
 	public void addActivity(Edge a) {
 		edges.add(a);
@@ -104,8 +119,35 @@ public abstract class Search extends AbstractDecisionPoint {
 
 		double g;
 		double h;
+		// Least cost of children dropped by SMA_STAR
+		double forgottenCost = Double.POSITIVE_INFINITY;
 
 		ModelState state;
+		// Kept after the state is released, to find cycles
+		int stateHash;
+
+		// Positions in heaps and among children of the parent, -1 if none
+		int openIndex = -1;
+		int worstIndex = -1;
+		int childIndex = -1;
+
+		void attach() {
+			childIndex = parent.children.size();
+			parent.children.add(this);
+		}
+
+		// Last child takes place of the detached one
+		void detach() {
+			if (childIndex < 0)
+				return;
+
+			GraphNode last = parent.children.remove(parent.children.size() - 1);
+			if (last != this) {
+				parent.children.set(childIndex, last);
+				last.childIndex = childIndex;
+			}
+			childIndex = -1;
+		}
 	}
 
 	private Comparator<GraphNode> nodeComparator = new Comparator<GraphNode>() {
@@ -120,17 +162,189 @@ public abstract class Search extends AbstractDecisionPoint {
 		}
 	};
 
-	private PriorityQueue<GraphNode> nodesOpen = new PriorityQueue<GraphNode>(1, nodeComparator);
-	private LinkedList<GraphNode> nodesClosed = new LinkedList<GraphNode>();
+	// Binary heap of nodes by cost, nodes keep their positions in it
+	private class NodeHeap {
+		NodeHeap(boolean isWorstFirst) {
+			this.isWorstFirst = isWorstFirst;
+		}
+
+		private final boolean isWorstFirst;
+		private GraphNode[] nodes = new GraphNode[16];
+		private int size = 0;
+
+		private int indexOf(GraphNode node) {
+			return isWorstFirst ? node.worstIndex : node.openIndex;
+		}
+
+		private void place(GraphNode node, int index) {
+			if (index >= 0)
+				nodes[index] = node;
+
+			if (isWorstFirst)
+				node.worstIndex = index;
+			else
+				node.openIndex = index;
+		}
+
+		private boolean precedes(GraphNode x, GraphNode y) {
+			int comparison = nodeComparator.compare(x, y);
+			return isWorstFirst ? comparison > 0 : comparison < 0;
+		}
+
+		void add(GraphNode node) {
+			if (size == nodes.length)
+				nodes = Arrays.copyOf(nodes, size * 2);
+
+			place(node, size);
+			siftUp(size++);
+		}
+
+		void remove(GraphNode node) {
+			int index = indexOf(node);
+			if (index < 0)
+				return;
+
+			GraphNode last = nodes[--size];
+			nodes[size] = null;
+			place(node, -1);
+
+			if (index < size) {
+				place(last, index);
+				siftDown(siftUp(index));
+			}
+		}
+
+		void update(GraphNode node) {
+			int index = indexOf(node);
+			if (index >= 0)
+				siftDown(siftUp(index));
+		}
+
+		void clear() {
+			for (int i = 0; i < size; i++) {
+				place(nodes[i], -1);
+				nodes[i] = null;
+			}
+			size = 0;
+		}
+
+		private int siftUp(int index) {
+			GraphNode node = nodes[index];
+			while (index > 0) {
+				int parent = (index - 1) >>> 1;
+				if (!precedes(node, nodes[parent]))
+					break;
+
+				place(nodes[parent], index);
+				index = parent;
+			}
+
+			place(node, index);
+			return index;
+		}
+
+		private void siftDown(int index) {
+			GraphNode node = nodes[index];
+			while (true) {
+				int child = 2 * index + 1;
+				if (child >= size)
+					break;
+				if (child + 1 < size && precedes(nodes[child + 1], nodes[child]))
+					child++;
+				if (!precedes(nodes[child], node))
+					break;
+
+				place(nodes[child], index);
+				index = child;
+			}
+
+			place(node, index);
+		}
+	}
+
+	// Worst nodes are kept in a reverse heap for SMA_STAR to drop them
+	private class OpenList {
+		private final NodeHeap best = new NodeHeap(false);
+		private final NodeHeap worst = new NodeHeap(true);
+		private boolean keepsWorst = false;
+
+		void clear(boolean keepsWorst) {
+			best.clear();
+			worst.clear();
+			this.keepsWorst = keepsWorst;
+		}
+
+		boolean isEmpty() {
+			return best.size == 0;
+		}
+
+		int size() {
+			return best.size;
+		}
+
+		void add(GraphNode node) {
+			best.add(node);
+			if (keepsWorst)
+				worst.add(node);
+		}
+
+		void addAll(List<GraphNode> nodes) {
+			for (GraphNode node : nodes)
+				add(node);
+		}
+
+		GraphNode poll() {
+			GraphNode node = best.nodes[0];
+			remove(node);
+			return node;
+		}
+
+		void remove(GraphNode node) {
+			best.remove(node);
+			worst.remove(node);
+		}
+
+		void costChanged(GraphNode node) {
+			best.update(node);
+			worst.update(node);
+		}
+
+		GraphNode worstExcept(GraphNode excluded) {
+			if (worst.size == 0)
+				return null;
+			if (worst.nodes[0] != excluded)
+				return worst.nodes[0];
+			if (worst.size == 1)
+				return null;
+			if (worst.size == 2 || worst.precedes(worst.nodes[1], worst.nodes[2]))
+				return worst.nodes[1];
+			return worst.nodes[2];
+		}
+	}
+
+	private OpenList nodesOpen = new OpenList();
+
+	// Used to compare tops, BEAM only keeps the level being spawned
+	private Map<Integer, List<GraphNode>> nodesByStateHash = new HashMap<Integer, List<GraphNode>>();
 
 	private GraphNode head;
 	private GraphNode current;
 
+	private ForkJoinPool pool = null;
+
 	private long memory;
 	private long time;
 
 	private int nodeIndex;
-	private int countSpawned;
+	private int numberOfNodesInMemory;
+
+	private SearchMetrics metrics;
+	private volatile SearchMetrics lastMetrics = null;
+
+	// Null until a search has stopped
+	public final SearchMetrics getLastMetrics() {
+		return lastMetrics;
+	}
 
 	@Override
 	public boolean check() {
@@ -139,9 +353,9 @@ public abstract class Search extends AbstractDecisionPoint {
 
 		time = System.currentTimeMillis();
 		memory = Runtime.getRuntime().freeMemory();
+		metrics = new SearchMetrics();
 
 		nodeIndex = 0;
-		countSpawned = 0;
 
 		serializeStart();
 
@@ -151,19 +365,60 @@ public abstract class Search extends AbstractDecisionPoint {
 		if (terminateCondition.get())
 			return stop(StopCode.CONDITION);
 
-		nodesOpen.clear();
-		nodesClosed.clear();
+		if (strategy == SearchStrategy.SMA_STAR && nodeBudget < 2)
+			throw new RaoLibException("Node budget of search " + getTypeName() + " must be at least 2");
+		if (strategy == SearchStrategy.BEAM && beamWidth < 1)
+			throw new RaoLibException("Beam width of search " + getTypeName() + " must be positive");
+
+		nodesOpen.clear(strategy == SearchStrategy.SMA_STAR);
+		nodesByStateHash.clear();
 
 		head = new GraphNode(nodeIndex++, null);
 		head.state = CurrentSimulator.getModelState();
+		head.stateHash = head.state.stateHash();
+		head.h = heuristic.get();
+		numberOfNodesInMemory = 1;
+
+		if (parallelism > 1)
+			pool = new ForkJoinPool(parallelism);
+
+		try {
+			switch (strategy) {
+			case IDA_STAR:
+				return searchIterativeDeepening();
+			case BEAM:
+				return searchBeam();
+			case A_STAR:
+			case SMA_STAR:
+			default:
+				return searchBestFirst();
+			}
+		} finally {
+			nodesOpen.clear(false);
+			nodesByStateHash.clear();
+
+			if (pool != null) {
+				pool.shutdownNow();
+				pool = null;
+			}
+		}
+	}
+
+	private boolean searchBestFirst() {
 		nodesOpen.add(head);
+		if (compareTops)
+			addStateHash(head);
 
 		while (!nodesOpen.isEmpty()) {
 			if (!allowSearch)
 				return stop(StopCode.ABORTED);
 
 			current = nodesOpen.poll();
-			nodesClosed.add(current);
+			// Only nodes with all successors dropped as dead ends are left
+			if (current.g + current.h == Double.POSITIVE_INFINITY)
+				break;
+
+			metrics.nodeExpanded();
 			current.state.deploy();
 
 			serializeOpen(current);
@@ -171,93 +426,393 @@ public abstract class Search extends AbstractDecisionPoint {
 			if (terminateCondition.get())
 				return stop(StopCode.SUCCESS);
 
-			nodesOpen.addAll(spawnChildren(current));
+			nodesOpen.addAll(spawn(current));
+			releaseState(current);
+			metrics.updatePeaks(nodesOpen.size(), numberOfNodesInMemory);
+
+			if (strategy == SearchStrategy.SMA_STAR) {
+				if (current.children.isEmpty() && current != head)
+					forget(current, Double.POSITIVE_INFINITY);
+				forgetWorstNodes();
+			}
 		}
 
 		head.state.deploy();
 		return stop(StopCode.FAIL);
 	}
 
+	// Simplified SMA*: worst open leaves are dropped backing their costs up
+	private final void forgetWorstNodes() {
+		while (numberOfNodesInMemory > nodeBudget && !nodesOpen.isEmpty()) {
+			GraphNode worst = nodesOpen.worstExcept(head);
+			if (worst == null)
+				break;
+
+			forget(worst, worst.g + worst.h);
+		}
+	}
+
+	private final void forget(GraphNode node, double cost) {
+		nodesOpen.remove(node);
+		if (compareTops)
+			removeStateHash(node);
+		numberOfNodesInMemory--;
+
+		GraphNode parent = node.parent;
+		node.detach();
+		parent.forgottenCost = Math.min(parent.forgottenCost, cost);
+
+		if (parent.children.isEmpty()) {
+			parent.h = Math.max(parent.h, parent.forgottenCost - parent.g);
+			parent.forgottenCost = Double.POSITIVE_INFINITY;
+			nodesOpen.add(parent);
+		}
+	}
+
+	// Depth first search with rising cost bound, skipping states on the path
+	private boolean searchIterativeDeepening() {
+		double bound = head.g + head.h;
+
+		while (true) {
+			double nextBound = Double.POSITIVE_INFINITY;
+			Deque<ListIterator<GraphNode>> path = new ArrayDeque<ListIterator<GraphNode>>();
+			GraphNode node = head;
+
+			while (true) {
+				if (!allowSearch)
+					return stop(StopCode.ABORTED);
+
+				if (node.g + node.h > bound) {
+					nextBound = Math.min(nextBound, node.g + node.h);
+				} else {
+					current = node;
+					metrics.nodeExpanded();
+					current.state.deploy();
+
+					serializeOpen(current);
+
+					if (terminateCondition.get())
+						return stop(StopCode.SUCCESS);
+
+					List<GraphNode> children = spawn(current);
+					children.sort(nodeComparator);
+					releaseState(current);
+					path.push(children.listIterator());
+					metrics.updatePeaks(numberOfNodesInMemory - path.size(), numberOfNodesInMemory);
+				}
+
+				while (!path.isEmpty() && !path.peek().hasNext())
+					numberOfNodesInMemory -= path.pop().nextIndex();
+				if (path.isEmpty())
+					break;
+
+				node = path.peek().next();
+			}
+
+			if (nextBound == Double.POSITIVE_INFINITY)
+				break;
+			bound = nextBound;
+		}
+
+		head.state.deploy();
+		return stop(StopCode.FAIL);
+	}
+
+	// Only beamWidth best nodes of every level are expanded
+	private boolean searchBeam() {
+		List<GraphNode> level = new ArrayList<GraphNode>();
+		level.add(head);
+
+		while (!level.isEmpty()) {
+			nodesByStateHash.clear();
+			List<GraphNode> nextLevel = new ArrayList<GraphNode>();
+
+			for (GraphNode node : level) {
+				if (!allowSearch)
+					return stop(StopCode.ABORTED);
+
+				current = node;
+				metrics.nodeExpanded();
+				current.state.deploy();
+
+				serializeOpen(current);
+
+				if (terminateCondition.get())
+					return stop(StopCode.SUCCESS);
+
+				nextLevel.addAll(spawn(current));
+				releaseState(current);
+			}
+
+			metrics.updatePeaks(nextLevel.size(), numberOfNodesInMemory);
+			nextLevel.sort(nodeComparator);
+			if (nextLevel.size() > beamWidth) {
+				numberOfNodesInMemory -= nextLevel.size() - beamWidth;
+				nextLevel = new ArrayList<GraphNode>(nextLevel.subList(0, beamWidth));
+			}
+			level = nextLevel;
+		}
+
+		head.state.deploy();
+		return stop(StopCode.FAIL);
+	}
+
+	private final boolean keepsSearchGraph() {
+		return strategy == SearchStrategy.A_STAR || strategy == SearchStrategy.SMA_STAR;
+	}
+
+	private final void releaseState(GraphNode node) {
+		if (node != head && !compareTops && strategy != SearchStrategy.SMA_STAR)
+			node.state = null;
+	}
+
+	private List<GraphNode> spawn(GraphNode parent) {
+		return pool != null ? spawnChildrenInParallel(parent) : spawnChildren(parent);
+	}
+
 	public static enum SpawnStatus {
 		NEW, WORSE, BETTER
 	}
 
+	private static class AppliedEdge {
+		AppliedEdge(int edgeNumber, Rule rule, ModelState state, double value, double h,
+				List<Database.ResourceUniqueEntry> resourceEntries) {
+			this.edgeNumber = edgeNumber;
+			this.rule = rule;
+			this.state = state;
+			this.value = value;
+			this.h = h;
+			this.resourceEntries = resourceEntries;
+		}
+
+		final int edgeNumber;
+		final Rule rule;
+		final ModelState state;
+		final double value;
+		final double h;
+		final List<Database.ResourceUniqueEntry> resourceEntries;
+	}
+
+	// Returns null if the edge cannot be applied
+	private AppliedEdge applyEdge(int edgeNumber, ModelState state, boolean separately) {
+		Edge edge = edges.get(edgeNumber);
+		double value = 0;
+
+		Rule rule;
+		if (separately)
+			rule = edge.checkSeparately();
+		else
+			rule = edge.check() ? edge.getPattern() : null;
+
+		if (rule == null)
+			return null;
+
+		if (edge.applyOrder == ApplyOrder.BEFORE)
+			value = edge.calculateValue();
+
+		rule.run();
+
+		if (edge.applyOrder == ApplyOrder.AFTER)
+			value = edge.calculateValue();
+
+		List<Database.ResourceUniqueEntry> resourceEntries = separately
+				? CurrentSimulator.getDatabase().takeMemorizedResourceEntries() : null;
+
+		return new AppliedEdge(edgeNumber, rule, state, value, heuristic.get(), resourceEntries);
+	}
+
 	private LinkedList<GraphNode> spawnChildren(GraphNode parent) {
 		LinkedList<GraphNode> children = new LinkedList<GraphNode>();
 
 		for (int edgeNumber = 0; edgeNumber < edges.size(); edgeNumber++) {
-			Edge edge = edges.get(edgeNumber);
-			double value = 0;
-
 			ModelState parentStateCopy = parent.state.shallowCopy();
 			parentStateCopy.deploy();
 
-			if (!edge.check())
+			AppliedEdge appliedEdge = applyEdge(edgeNumber, parentStateCopy, false);
+			if (appliedEdge == null)
 				continue;
 
-			GraphNode newChild = new GraphNode(nodeIndex, parent);
+			addChild(parent, appliedEdge, children);
+			parent.state.deploy();
+		}
 
-			countSpawned++;
+		return children;
+	}
 
-			SpawnStatus spawnStatus = SpawnStatus.NEW;
+	// Every thread applies its range of edges to a deep copy of the parent
+	// state, children are added in the order of edges as they would be
+	private LinkedList<GraphNode> spawnChildrenInParallel(GraphNode parent) {
+		SimulatorContext context = CurrentSimulator.getContext();
+		int numberOfRanges = Math.min(parallelism, edges.size());
+
+		List<Future<List<AppliedEdge>>> ranges = new ArrayList<Future<List<AppliedEdge>>>();
+		for (int range = 0; range < numberOfRanges; range++) {
+			int first = range * edges.size() / numberOfRanges;
+			int last = (range + 1) * edges.size() / numberOfRanges;
+			ranges.add(pool.submit(() -> applyEdges(context, parent.state, first, last)));
+		}
 
-			if (edge.applyOrder == ApplyOrder.BEFORE)
-				value = edge.calculateValue();
+		LinkedList<GraphNode> children = new LinkedList<GraphNode>();
+		for (Future<List<AppliedEdge>> range : ranges) {
+			for (AppliedEdge appliedEdge : getRange(range)) {
+				appliedEdge.state.deploy();
+				CurrentSimulator.getDatabase().memorizeResourceEntries(appliedEdge.resourceEntries);
+				addChild(parent, appliedEdge, children);
+				parent.state.deploy();
+			}
+		}
 
-			newChild.state = parentStateCopy;
-			newChild.state.deploy();
+		return children;
+	}
 
-			Rule executed = edge.execute();
-			newChild.edgeInfo = new EdgeInfo(edgeNumber, executed);
+	private List<AppliedEdge> applyEdges(SimulatorContext context, ModelState parentState, int first, int last) {
+		ModelState state = parentState.deepCopy();
+		CurrentSimulator.bindIsolatedContext(context, state);
+		CurrentSimulator.getDatabase().memorizeResourceEntriesSeparately(true);
 
-			if (edge.applyOrder == ApplyOrder.AFTER)
-				value = edge.calculateValue();
+		try {
+			List<AppliedEdge> appliedEdges = new ArrayList<AppliedEdge>();
+			for (int edgeNumber = first; edgeNumber < last; edgeNumber++) {
+				ModelState stateCopy = state.shallowCopy();
+				stateCopy.deploy();
 
-			newChild.g = parent.g + value;
-			newChild.h = heuristic.get();
+				AppliedEdge appliedEdge = applyEdge(edgeNumber, stateCopy, true);
+				if (appliedEdge != null)
+					appliedEdges.add(appliedEdge);
+			}
 
-			add_child: {
-				if (compareTops) {
-					for (Collection<GraphNode> nodesList : Arrays.asList(nodesOpen, nodesClosed)) {
-						for (GraphNode node : nodesList) {
-							if (!newChild.state.checkEqual(node.state))
-								continue;
+			return appliedEdges;
+		} finally {
+			CurrentSimulator.getDatabase().memorizeResourceEntriesSeparately(false);
+			CurrentSimulator.unbindContext();
+		}
+	}
 
-							if (newChild.g < node.g) {
-								if (node.parent != null)
-									node.parent.children.remove(node);
-								node.parent = newChild.parent;
-								node.edgeInfo = newChild.edgeInfo;
-								reduceСost(node, node.g - newChild.g);
-								newChild = node;
-								spawnStatus = SpawnStatus.BETTER;
-								break add_child;
-							} else {
-								spawnStatus = SpawnStatus.WORSE;
-								break add_child;
-							}
-						}
+	private static List<AppliedEdge> getRange(Future<List<AppliedEdge>> range) {
+		try {
+			return range.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RaoLibException("Search was interrupted");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw new RaoLibException("Failed to apply search edges: " + e.getCause());
+		}
+	}
+
+	private void addChild(GraphNode parent, AppliedEdge appliedEdge, LinkedList<GraphNode> children) {
+		GraphNode newChild = new GraphNode(nodeIndex, parent);
+
+		metrics.countSpawned++;
+
+		SpawnStatus spawnStatus = SpawnStatus.NEW;
+
+		newChild.state = appliedEdge.state;
+		newChild.stateHash = appliedEdge.state.stateHash();
+		newChild.edgeInfo = new EdgeInfo(appliedEdge.edgeNumber, appliedEdge.rule);
+		newChild.g = parent.g + appliedEdge.value;
+		newChild.h = appliedEdge.h;
+
+		add_child: {
+			boolean checksPath = strategy == SearchStrategy.IDA_STAR || compareTops && !keepsSearchGraph();
+			if (checksPath && hasEqualAncestor(parent, newChild)) {
+				spawnStatus = SpawnStatus.WORSE;
+				break add_child;
+			}
+
+			if (compareTops) {
+				GraphNode node = findEqualState(newChild.state);
+				if (node != null) {
+					if (newChild.g < node.g) {
+						node.detach();
+						node.parent = newChild.parent;
+						if (keepsSearchGraph())
+							node.attach();
+						node.edgeInfo = newChild.edgeInfo;
+						// Equal states may still differ in what is not compared
+						node.state = newChild.state;
+						reduceСost(node, node.g - newChild.g);
+						newChild = node;
+						spawnStatus = SpawnStatus.BETTER;
+						break add_child;
+					} else {
+						spawnStatus = SpawnStatus.WORSE;
+						break add_child;
 					}
 				}
 
-				children.add(newChild);
-				nodeIndex++;
+				if (strategy != SearchStrategy.IDA_STAR)
+					addStateHash(newChild);
 			}
 
-			serializeTops(newChild, spawnStatus, value);
+			if (keepsSearchGraph())
+				newChild.attach();
+			children.add(newChild);
+			nodeIndex++;
+			numberOfNodesInMemory++;
+		}
 
-			CurrentSimulator.getExecutionStateNotifier().notifySubscribers(ExecutionState.SEARCH_STEP);
-			parent.state.deploy();
+		if (spawnStatus != SpawnStatus.NEW)
+			metrics.countDuplicates++;
+
+		serializeTops(newChild, spawnStatus, appliedEdge.value);
+
+		CurrentSimulator.getExecutionStateNotifier().notifySubscribers(ExecutionState.SEARCH_STEP);
+	}
+
+	private final GraphNode findEqualState(ModelState state) {
+		List<GraphNode> nodes = nodesByStateHash.get(state.stateHash());
+		if (nodes == null)
+			return null;
+
+		for (GraphNode node : nodes) {
+			if (state.checkEqual(node.state))
+				return node;
 		}
 
-		return children;
+		return null;
+	}
+
+	private final void addStateHash(GraphNode node) {
+		nodesByStateHash.computeIfAbsent(node.state.stateHash(), hash -> new ArrayList<GraphNode>(1)).add(node);
+	}
+
+	private final void removeStateHash(GraphNode node) {
+		int hash = node.state.stateHash();
+		List<GraphNode> nodes = nodesByStateHash.get(hash);
+		if (nodes == null)
+			return;
 
+		nodes.remove(node);
+		if (nodes.isEmpty())
+			nodesByStateHash.remove(hash);
 	}
 
+	// Released states are compared by hashes alone
+	private final boolean hasEqualAncestor(GraphNode parent, GraphNode child) {
+		for (GraphNode node = parent; node != null; node = node.parent) {
+			if (node.stateHash == child.stateHash && (node.state == null || child.state.checkEqual(node.state)))
+				return true;
+		}
+
+		return false;
+	}
+
+	// Cost is propagated iteratively, as subtrees may be deep
 	private final void reduceСost(GraphNode node, double delta) {
-		node.g -= delta;
-		for (final GraphNode child : node.children) {
-			reduceСost(child, delta);
+		Deque<GraphNode> nodes = new ArrayDeque<GraphNode>();
+		nodes.push(node);
+
+		while (!nodes.isEmpty()) {
+			GraphNode reduced = nodes.pop();
+			reduced.g -= delta;
+			nodesOpen.costChanged(reduced);
+
+			for (GraphNode child : reduced.children)
+				nodes.push(child);
 		}
 	}
 
@@ -285,6 +840,7 @@ public abstract class Search extends AbstractDecisionPoint {
 			databaseAddDecision();
 			result = true;
 			finalCost = current.g;
+			addSolutionMetrics();
 			break;
 		case FAIL:
 		default:
@@ -292,11 +848,30 @@ public abstract class Search extends AbstractDecisionPoint {
 			break;
 		}
 
+		metrics.stopped();
+		lastMetrics = metrics;
 		serializeStop(code, finalCost);
 
 		return result;
 	}
 
+	private void addSolutionMetrics() {
+		int depth = 0;
+		for (GraphNode node = current; node != head; node = node.parent)
+			depth++;
+
+		double[] costs = new double[depth + 1];
+		double[] heuristics = new double[depth + 1];
+		GraphNode node = current;
+		for (int i = depth; i >= 0; i--) {
+			costs[i] = node.g;
+			heuristics[i] = node.h;
+			node = node.parent;
+		}
+
+		metrics.solutionFound(costs, heuristics);
+	}
+
 	private void databaseAddDecision() {
 		LinkedList<GraphNode> decision = new LinkedList<GraphNode>();
 		GraphNode node = current;
@@ -355,11 +930,12 @@ public abstract class Search extends AbstractDecisionPoint {
 			return;
 
 		ByteBuffer data = ByteBuffer.allocate(Database.TypeSize.BYTE + Database.TypeSize.DOUBLE
-				+ Database.TypeSize.INT * 4 + Database.TypeSize.LONG * 2);
+				+ Database.TypeSize.INT * 4 + Database.TypeSize.LONG * 2 + metrics.serializedSize());
 
 		data.put((byte) code.ordinal()).putLong(System.currentTimeMillis() - time)
-				.putLong(memory - Runtime.getRuntime().freeMemory()).putDouble(finalCost).putInt(nodesClosed.size())
-				.putInt(nodesOpen.size()).putInt(countSpawned);
+				.putLong(memory - Runtime.getRuntime().freeMemory()).putDouble(finalCost)
+				.putInt(metrics.getCountExpanded()).putInt(nodesOpen.size()).putInt(metrics.getCountSpawned());
+		metrics.serialize(data);
 
 		CurrentSimulator.getDatabase().addSearchEntry(this, Database.SearchEntryType.END, data);
 	}
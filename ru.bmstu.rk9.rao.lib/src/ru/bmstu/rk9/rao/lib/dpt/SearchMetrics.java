@@ -0,0 +1,210 @@
+package ru.bmstu.rk9.rao.lib.dpt;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import ru.bmstu.rk9.rao.lib.database.Database;
+
+/*
+ * Statistics of a single run of a search. Counters are updated by the search
+ * while it runs, and the rest is calculated once it stops. Expansions are
+ * sampled with their time every so many expansions, and once there are too
+ * many samples every other one is dropped and the interval is doubled, so
+ * sampling costs the same for searches of any size.
+ */
+public class SearchMetrics {
+	private static final int MAX_SAMPLES = 64;
+
+	SearchMetrics() {
+		startTime = System.nanoTime();
+		startMemory = usedMemory();
+	}
+
+	private final long startTime;
+	private final long startMemory;
+
+	private long elapsedNanos;
+	private long memoryGrowth;
+
+	int countExpanded = 0;
+	int countSpawned = 0;
+	int countDuplicates = 0;
+	private int peakOpen = 0;
+	private int peakNodesInMemory = 1;
+
+	private int sampleInterval = 16;
+	private int numberOfSamples = 0;
+	private long[] sampleNanos = new long[MAX_SAMPLES];
+	private int[] sampleExpansions = new int[MAX_SAMPLES];
+
+	private int solutionDepth = 0;
+	private double effectiveBranchingFactor = Double.NaN;
+	private double meanHeuristicError = Double.NaN;
+	private double maxHeuristicOverestimate = Double.NaN;
+
+	final void nodeExpanded() {
+		countExpanded++;
+		if (countExpanded % sampleInterval != 0)
+			return;
+
+		if (numberOfSamples == MAX_SAMPLES) {
+			for (int i = 0; i < MAX_SAMPLES / 2; i++) {
+				sampleNanos[i] = sampleNanos[2 * i + 1];
+				sampleExpansions[i] = sampleExpansions[2 * i + 1];
+			}
+			numberOfSamples = MAX_SAMPLES / 2;
+			sampleInterval *= 2;
+			if (countExpanded % sampleInterval != 0)
+				return;
+		}
+
+		sampleNanos[numberOfSamples] = System.nanoTime() - startTime;
+		sampleExpansions[numberOfSamples] = countExpanded;
+		numberOfSamples++;
+	}
+
+	final void updatePeaks(int numberOfOpen, int numberOfNodesInMemory) {
+		peakOpen = Math.max(peakOpen, numberOfOpen);
+		peakNodesInMemory = Math.max(peakNodesInMemory, numberOfNodesInMemory);
+	}
+
+	// Costs and heuristic estimates of nodes on the solution path, starting
+	// with the head
+	final void solutionFound(double[] costs, double[] heuristics) {
+		solutionDepth = costs.length - 1;
+		double finalCost = costs[solutionDepth];
+
+		double errorSum = 0;
+		double maxOverestimate = 0;
+		for (int i = 0; i < solutionDepth; i++) {
+			double error = finalCost - costs[i] - heuristics[i];
+			errorSum += error;
+			maxOverestimate = Math.max(maxOverestimate, -error);
+		}
+
+		if (solutionDepth > 0) {
+			meanHeuristicError = errorSum / solutionDepth;
+			maxHeuristicOverestimate = maxOverestimate;
+			effectiveBranchingFactor = calculateBranchingFactor(countSpawned - countDuplicates + 1, solutionDepth);
+		}
+	}
+
+	final void stopped() {
+		elapsedNanos = System.nanoTime() - startTime;
+		memoryGrowth = usedMemory() - startMemory;
+	}
+
+	// Branching factor b of a uniform tree of the given depth with the given
+	// number of nodes, that is 1 + b + ... + b^depth, found by bisection
+	private static double calculateBranchingFactor(int numberOfNodes, int depth) {
+		double low = 1;
+		double high = Math.max(numberOfNodes, 1);
+
+		for (int i = 0; i < 64; i++) {
+			double b = (low + high) / 2;
+			double treeSize = 0;
+			double levelSize = 1;
+			for (int level = 0; level <= depth && treeSize <= numberOfNodes; level++) {
+				treeSize += levelSize;
+				levelSize *= b;
+			}
+
+			if (treeSize > numberOfNodes)
+				high = b;
+			else
+				low = b;
+		}
+
+		return low;
+	}
+
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	public final long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public final int getCountExpanded() {
+		return countExpanded;
+	}
+
+	public final int getCountSpawned() {
+		return countSpawned;
+	}
+
+	// Spawned nodes with states equal to states of nodes already found
+	public final int getCountDuplicates() {
+		return countDuplicates;
+	}
+
+	public final double getDuplicateRate() {
+		return countSpawned == 0 ? 0 : (double) countDuplicates / countSpawned;
+	}
+
+	public final double getExpansionRate() {
+		return elapsedNanos == 0 ? 0 : countExpanded * 1e9 / elapsedNanos;
+	}
+
+	// Time since the start of the search and number of nodes expanded by
+	// that time
+	public final long[] getSampleNanos() {
+		return Arrays.copyOf(sampleNanos, numberOfSamples);
+	}
+
+	public final int[] getSampleExpansions() {
+		return Arrays.copyOf(sampleExpansions, numberOfSamples);
+	}
+
+	public final int getPeakOpen() {
+		return peakOpen;
+	}
+
+	public final int getPeakNodesInMemory() {
+		return peakNodesInMemory;
+	}
+
+	// Heap growth over the search divided by the peak number of nodes, it is
+	// only an estimate, as garbage collection may happen at any time
+	public final long getEstimatedBytesPerNode() {
+		return Math.max(memoryGrowth, 0) / peakNodesInMemory;
+	}
+
+	public final int getSolutionDepth() {
+		return solutionDepth;
+	}
+
+	// Following metrics are NaN unless a solution is found
+
+	public final double getEffectiveBranchingFactor() {
+		return effectiveBranchingFactor;
+	}
+
+	// Mean difference of actual cost from nodes of the solution to its end and
+	// heuristic estimate of that cost, positive if the heuristic underestimates
+	public final double getMeanHeuristicError() {
+		return meanHeuristicError;
+	}
+
+	// Zero as long as the heuristic is admissible on the solution
+	public final double getMaxHeuristicOverestimate() {
+		return maxHeuristicOverestimate;
+	}
+
+	static final int SIZE = Database.TypeSize.INT * 5 + Database.TypeSize.DOUBLE * 3 + Database.TypeSize.LONG * 2;
+
+	final void serialize(ByteBuffer data) {
+		data.putLong(elapsedNanos).putInt(countDuplicates).putInt(peakOpen).putInt(peakNodesInMemory)
+				.putLong(getEstimatedBytesPerNode()).putInt(solutionDepth).putDouble(effectiveBranchingFactor)
+				.putDouble(meanHeuristicError).putDouble(maxHeuristicOverestimate).putInt(numberOfSamples);
+
+		for (int i = 0; i < numberOfSamples; i++)
+			data.putLong(sampleNanos[i]).putInt(sampleExpansions[i]);
+	}
+
+	final int serializedSize() {
+		return SIZE + numberOfSamples * (Database.TypeSize.LONG + Database.TypeSize.INT);
+	}
+}
@@ -0,0 +1,5 @@
+package ru.bmstu.rk9.rao.lib.dpt;
+
+public enum SearchStrategy {
+	A_STAR, IDA_STAR, SMA_STAR, BEAM
+}
@@ -0,0 +1,254 @@
+package ru.bmstu.rk9.rao.lib.event;
+
+/*
+ * Calendar queue by R. Brown (CACM 31(10), 1988): events are hashed by time
+ * into "days" of a "year", each day being a sorted list. Number of days and
+ * day width are recalculated when the number of events doubles or halves,
+ * which gives amortized O(1) push and pop for typical event time distributions.
+ */
+public class CalendarEventScheduler implements EventScheduler {
+	private static final int MIN_BUCKETS = 2;
+	private static final int SAMPLE_SIZE = 25;
+
+	private static class Entry {
+		Event event;
+		Entry next;
+	}
+
+	private Entry[] buckets;
+	private double width;
+	private int size = 0;
+
+	private int lastBucket;
+	private double bucketTop;
+	private double lastTime;
+
+	private int topThreshold;
+	private int bottomThreshold;
+
+	private Entry freeEntries = null;
+	private final Entry[] sample = new Entry[SAMPLE_SIZE];
+	private long sequenceNumber = 0;
+
+	public CalendarEventScheduler() {
+		initialize(MIN_BUCKETS, 1.0, 0.0);
+	}
+
+	private void initialize(int numberOfBuckets, double bucketWidth, double startTime) {
+		buckets = new Entry[numberOfBuckets];
+		width = bucketWidth;
+		lastTime = startTime;
+
+		long virtualBucket = virtualBucket(startTime);
+		lastBucket = (int) (virtualBucket % numberOfBuckets);
+		bucketTop = (virtualBucket + 1.5) * width;
+
+		topThreshold = 2 * numberOfBuckets;
+		bottomThreshold = numberOfBuckets / 2 - 2;
+	}
+
+	private long virtualBucket(double time) {
+		return (long) (time / width);
+	}
+
+	@Override
+	public void pushEvent(Event event) {
+		event.sequenceNumber = sequenceNumber++;
+		Entry entry = obtainEntry(event);
+		insert(entry);
+		size++;
+
+		if (size > topThreshold)
+			resize(2 * buckets.length);
+	}
+
+	@Override
+	public Event popEvent() {
+		if (size == 0)
+			return null;
+
+		Entry entry = removeFirst();
+		size--;
+
+		if (size < bottomThreshold)
+			resize(buckets.length / 2);
+
+		Event event = entry.event;
+		event.index = -1;
+		releaseEntry(entry);
+		return event;
+	}
+
+	@Override
+	public boolean removeEvent(Event event) {
+		int bucket = event.index;
+		if (bucket < 0 || bucket >= buckets.length)
+			return false;
+
+		Entry previous = null;
+		Entry current = buckets[bucket];
+		while (current != null && current.event != event) {
+			previous = current;
+			current = current.next;
+		}
+
+		if (current == null)
+			return false;
+
+		if (previous == null)
+			buckets[bucket] = current.next;
+		else
+			previous.next = current.next;
+
+		size--;
+		event.index = -1;
+		releaseEntry(current);
+
+		if (size < bottomThreshold)
+			resize(buckets.length / 2);
+
+		return true;
+	}
+
+	@Override
+	public boolean haveEvents() {
+		return size != 0;
+	}
+
+	private void insert(Entry entry) {
+		int bucket = (int) (virtualBucket(entry.event.time) % buckets.length);
+		entry.event.index = bucket;
+
+		Entry previous = null;
+		Entry current = buckets[bucket];
+		while (current != null && !precedes(entry.event, current.event)) {
+			previous = current;
+			current = current.next;
+		}
+
+		entry.next = current;
+		if (previous == null)
+			buckets[bucket] = entry;
+		else
+			previous.next = entry;
+	}
+
+	private Entry removeFirst() {
+		int bucket = lastBucket;
+
+		while (true) {
+			Entry head = buckets[bucket];
+			if (head != null && head.event.time < bucketTop) {
+				buckets[bucket] = head.next;
+				lastBucket = bucket;
+				lastTime = head.event.time;
+				return head;
+			}
+
+			bucket++;
+			if (bucket == buckets.length)
+				bucket = 0;
+			bucketTop += width;
+
+			if (bucket == lastBucket)
+				break;
+		}
+
+		// No events within a year, find the earliest one directly
+		int minimumBucket = -1;
+		for (int i = 0; i < buckets.length; i++) {
+			if (buckets[i] == null)
+				continue;
+
+			if (minimumBucket == -1 || precedes(buckets[i].event, buckets[minimumBucket].event))
+				minimumBucket = i;
+		}
+
+		Entry head = buckets[minimumBucket];
+		buckets[minimumBucket] = head.next;
+		lastBucket = minimumBucket;
+		lastTime = head.event.time;
+		bucketTop = (virtualBucket(lastTime) + 1.5) * width;
+		return head;
+	}
+
+	private boolean precedes(Event x, Event y) {
+		return Event.comparator.compare(x, y) < 0;
+	}
+
+	private void resize(int numberOfBuckets) {
+		if (numberOfBuckets < MIN_BUCKETS)
+			return;
+
+		double newWidth = calculateWidth();
+
+		Entry[] oldBuckets = buckets;
+		initialize(numberOfBuckets, newWidth, lastTime);
+
+		for (Entry head : oldBuckets) {
+			Entry entry = head;
+			while (entry != null) {
+				Entry next = entry.next;
+				insert(entry);
+				entry = next;
+			}
+		}
+	}
+
+	private double calculateWidth() {
+		if (size < 2)
+			return width;
+
+		int sampleSize = Math.min(size, SAMPLE_SIZE);
+
+		int savedBucket = lastBucket;
+		double savedBucketTop = bucketTop;
+		double savedLastTime = lastTime;
+
+		for (int i = 0; i < sampleSize; i++)
+			sample[i] = removeFirst();
+		for (int i = 0; i < sampleSize; i++)
+			insert(sample[i]);
+
+		lastBucket = savedBucket;
+		bucketTop = savedBucketTop;
+		lastTime = savedLastTime;
+
+		double totalSeparation = sample[sampleSize - 1].event.time - sample[0].event.time;
+		double averageSeparation = totalSeparation / (sampleSize - 1);
+
+		double clippedSeparation = 0;
+		int clippedCount = 0;
+		for (int i = 1; i < sampleSize; i++) {
+			double separation = sample[i].event.time - sample[i - 1].event.time;
+			if (separation <= 2 * averageSeparation) {
+				clippedSeparation += separation;
+				clippedCount++;
+			}
+		}
+
+		double newWidth = clippedCount == 0 ? 0 : 3 * clippedSeparation / clippedCount;
+		if (newWidth <= 0 || Double.isNaN(newWidth) || Double.isInfinite(newWidth))
+			return width;
+
+		return newWidth;
+	}
+
+	private Entry obtainEntry(Event event) {
+		Entry entry = freeEntries;
+		if (entry != null)
+			freeEntries = entry.next;
+		else
+			entry = new Entry();
+
+		entry.event = event;
+		entry.next = null;
+		return entry;
+	}
+
+	private void releaseEntry(Entry entry) {
+		entry.event = null;
+		entry.next = freeEntries;
+		freeEntries = entry;
+	}
+}
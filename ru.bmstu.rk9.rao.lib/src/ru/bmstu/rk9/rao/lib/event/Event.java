@@ -1,6 +1,10 @@
 package ru.bmstu.rk9.rao.lib.event;
 
+import java.util.Comparator;
+
+import ru.bmstu.rk9.rao.lib.database.Database;
 import ru.bmstu.rk9.rao.lib.database.SerializationConstants;
+import ru.bmstu.rk9.rao.lib.exception.RaoLibException;
 import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator;
 
 public abstract class Event {
@@ -10,14 +14,86 @@ public abstract class Event {
 		return time;
 	}
 
+	protected int priority = 0;
+
+	public final int getPriority() {
+		return priority;
+	}
+
+	// Schedulers keep planned events sorted by priority, so it can only be
+	// changed before the event is planned
+	public final void setPriority(int priority) {
+		if (isPlanned())
+			throw new RaoLibException("Cannot change priority of planned event " + getName());
+
+		this.priority = priority;
+	}
+
+	long sequenceNumber;
+	int index = -1;
+	EventPool<?> pool = null;
+
+	public final boolean isPlanned() {
+		return index >= 0;
+	}
+
+	public final boolean cancel() {
+		return CurrentSimulator.cancelEvent(this);
+	}
+
+	// Only planned events can be moved, events that have already happened or
+	// have been cancelled have to be planned again
+	public final void reschedule(double time) {
+		if (!isPlanned())
+			throw new RaoLibException("Cannot reschedule event " + getName() + " as it is not planned");
+
+		if (time < CurrentSimulator.getTime())
+			throw new RaoLibException("Cannot reschedule event " + getName() + " to time " + time
+					+ " which is before current time " + CurrentSimulator.getTime());
+
+		CurrentSimulator.cancelEvent(this);
+		this.time = time;
+		CurrentSimulator.pushEvent(this);
+	}
+
 	public abstract String getName();
 
 	public final void run() {
 		execute();
-		CurrentSimulator.getDatabase().addEventEntry(this);
-		CurrentSimulator.getDatabase().addMemorizedResourceEntries(
-				this.getName() + "." + SerializationConstants.CREATED_RESOURCES, null, null);
+		Database database = CurrentSimulator.getDatabase();
+		database.addEventEntry(this);
+		if (database.hasMemorizedResourceEntries())
+			database.addMemorizedResourceEntries(this.getName() + "." + SerializationConstants.CREATED_RESOURCES,
+					null, null);
+
+		discard();
+	}
+
+	// Pooled event goes back to its pool once it is not going to happen, so
+	// it is also called for events planned before current time
+	public final void discard() {
+		if (pool != null && !isPlanned())
+			pool.release(this);
 	}
 
 	protected abstract void execute();
+
+	// Simultaneous events are ordered by priority (higher first) and then in
+	// the order they were scheduled, so that runs are reproducible
+	static final Comparator<Event> comparator = new Comparator<Event>() {
+		@Override
+		public int compare(Event x, Event y) {
+			if (x.time < y.time)
+				return -1;
+			if (x.time > y.time)
+				return 1;
+
+			if (x.priority > y.priority)
+				return -1;
+			if (x.priority < y.priority)
+				return 1;
+
+			return Long.compare(x.sequenceNumber, y.sequenceNumber);
+		}
+	};
 }
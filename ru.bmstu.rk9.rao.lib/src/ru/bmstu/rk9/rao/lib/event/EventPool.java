@@ -0,0 +1,34 @@
+package ru.bmstu.rk9.rao.lib.event;
+
+import java.util.ArrayDeque;
+import java.util.function.Supplier;
+
+/*
+ * Reuses library events that are planned over and over again. An event taken
+ * from the pool goes back to it right after it has been run, so it must not
+ * be referenced by anyone after that.
+ */
+public class EventPool<T extends Event> {
+	private final Supplier<T> factory;
+	private final ArrayDeque<T> freeEvents = new ArrayDeque<T>();
+
+	public EventPool(Supplier<T> factory) {
+		this.factory = factory;
+	}
+
+	public final T obtain(double time) {
+		T event = freeEvents.poll();
+		if (event == null)
+			event = factory.get();
+
+		event.pool = this;
+		event.time = time;
+		return event;
+	}
+
+	@SuppressWarnings("unchecked")
+	final void release(Event event) {
+		event.pool = null;
+		freeEvents.push((T) event);
+	}
+}
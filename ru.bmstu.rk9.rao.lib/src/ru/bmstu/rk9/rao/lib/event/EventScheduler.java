@@ -1,34 +1,11 @@
 package ru.bmstu.rk9.rao.lib.event;
 
-import java.util.PriorityQueue;
-import java.util.Comparator;
+public interface EventScheduler {
+	public void pushEvent(Event event);
 
-import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator;
+	public Event popEvent();
 
-public class EventScheduler {
-	private static Comparator<Event> comparator = new Comparator<Event>() {
-		@Override
-		public int compare(Event x, Event y) {
-			if (x.getTime() < y.getTime())
-				return -1;
-			if (x.getTime() > y.getTime())
-				return 1;
-			return 0;
-		}
-	};
+	public boolean removeEvent(Event event);
 
-	private PriorityQueue<Event> eventList = new PriorityQueue<Event>(1, comparator);
-
-	public void pushEvent(Event event) {
-		if (event.getTime() >= CurrentSimulator.getTime())
-			eventList.add(event);
-	}
-
-	public Event popEvent() {
-		return eventList.poll();
-	}
-
-	public boolean haveEvents() {
-		return !eventList.isEmpty();
-	}
+	public boolean haveEvents();
 }
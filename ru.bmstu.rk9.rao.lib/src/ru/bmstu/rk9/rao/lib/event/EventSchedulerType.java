@@ -0,0 +1,36 @@
+package ru.bmstu.rk9.rao.lib.event;
+
+import ru.bmstu.rk9.rao.lib.exception.RaoLibException;
+
+public enum EventSchedulerType {
+	BINARY_HEAP("heap"), CALENDAR_QUEUE("calendar");
+
+	private EventSchedulerType(String name) {
+		this.name = name;
+	}
+
+	private final String name;
+
+	// Name used in project settings and command line
+	public String getName() {
+		return name;
+	}
+
+	public static EventSchedulerType getByName(String name) {
+		for (EventSchedulerType type : values())
+			if (type.name.equalsIgnoreCase(name) || type.name().equalsIgnoreCase(name))
+				return type;
+
+		throw new RaoLibException("Unknown event scheduler " + name + ", expected heap or calendar");
+	}
+
+	public EventScheduler createScheduler() {
+		switch (this) {
+		case CALENDAR_QUEUE:
+			return new CalendarEventScheduler();
+		case BINARY_HEAP:
+		default:
+			return new HeapEventScheduler();
+		}
+	}
+}
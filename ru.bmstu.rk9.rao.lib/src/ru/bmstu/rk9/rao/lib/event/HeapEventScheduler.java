@@ -0,0 +1,164 @@
+package ru.bmstu.rk9.rao.lib.event;
+
+import java.util.Arrays;
+
+/*
+ * Binary heap ordered by primitive keys. Heap nodes hold only event time and
+ * slot number, while events themselves and their tie-breaking keys are kept
+ * in slots that do not move during sifting. Event.index holds the slot, so
+ * planned events can be removed in O(log n). Once the arrays have grown to
+ * the peak number of planned events, push and pop allocate nothing.
+ */
+public class HeapEventScheduler implements EventScheduler {
+	private static final int INITIAL_CAPACITY = 16;
+
+	private double[] heapTimes = new double[INITIAL_CAPACITY];
+	private int[] heapSlots = new int[INITIAL_CAPACITY];
+	private int size = 0;
+
+	private Event[] slotEvents = new Event[INITIAL_CAPACITY];
+	private int[] slotPriorities = new int[INITIAL_CAPACITY];
+	private long[] slotSequenceNumbers = new long[INITIAL_CAPACITY];
+	private int[] slotPositions = new int[INITIAL_CAPACITY];
+
+	private int[] freeSlots = new int[INITIAL_CAPACITY];
+	private int freeSlotsCount = 0;
+
+	private long sequenceNumber = 0;
+
+	@Override
+	public void pushEvent(Event event) {
+		if (size == heapTimes.length)
+			grow();
+
+		// Every occupied slot is in the heap, so when no slot was freed the
+		// next unused one is exactly at size
+		int slot = freeSlotsCount > 0 ? freeSlots[--freeSlotsCount] : size;
+
+		event.sequenceNumber = sequenceNumber++;
+		event.index = slot;
+		slotEvents[slot] = event;
+		slotPriorities[slot] = event.priority;
+		slotSequenceNumbers[slot] = event.sequenceNumber;
+
+		siftUp(size++, event.time, slot);
+	}
+
+	@Override
+	public Event popEvent() {
+		if (size == 0)
+			return null;
+
+		return removeAt(0);
+	}
+
+	@Override
+	public boolean removeEvent(Event event) {
+		int slot = event.index;
+		if (slot < 0 || slot >= slotEvents.length || slotEvents[slot] != event)
+			return false;
+
+		removeAt(slotPositions[slot]);
+		return true;
+	}
+
+	@Override
+	public boolean haveEvents() {
+		return size != 0;
+	}
+
+	private Event removeAt(int position) {
+		int slot = heapSlots[position];
+		Event removed = slotEvents[slot];
+		removed.index = -1;
+		slotEvents[slot] = null;
+		freeSlots[freeSlotsCount++] = slot;
+
+		int last = --size;
+		if (position == last)
+			return removed;
+
+		double lastTime = heapTimes[last];
+		int lastSlot = heapSlots[last];
+
+		siftDown(position, lastTime, lastSlot);
+		if (heapSlots[position] == lastSlot)
+			siftUp(position, lastTime, lastSlot);
+
+		return removed;
+	}
+
+	private boolean precedes(double time, int slot, double otherTime, int otherSlot) {
+		if (time < otherTime)
+			return true;
+		if (time > otherTime)
+			return false;
+
+		int priority = slotPriorities[slot];
+		int otherPriority = slotPriorities[otherSlot];
+		if (priority != otherPriority)
+			return priority > otherPriority;
+
+		return slotSequenceNumbers[slot] < slotSequenceNumbers[otherSlot];
+	}
+
+	private void siftUp(int position, double time, int slot) {
+		while (position > 0) {
+			int parentPosition = (position - 1) >>> 1;
+			double parentTime = heapTimes[parentPosition];
+			int parentSlot = heapSlots[parentPosition];
+			if (!precedes(time, slot, parentTime, parentSlot))
+				break;
+
+			place(position, parentTime, parentSlot);
+			position = parentPosition;
+		}
+
+		place(position, time, slot);
+	}
+
+	private void siftDown(int position, double time, int slot) {
+		int half = size >>> 1;
+		while (position < half) {
+			int childPosition = 2 * position + 1;
+			double childTime = heapTimes[childPosition];
+			int childSlot = heapSlots[childPosition];
+
+			int rightPosition = childPosition + 1;
+			if (rightPosition < size
+					&& precedes(heapTimes[rightPosition], heapSlots[rightPosition], childTime, childSlot)) {
+				childPosition = rightPosition;
+				childTime = heapTimes[rightPosition];
+				childSlot = heapSlots[rightPosition];
+			}
+
+			if (!precedes(childTime, childSlot, time, slot))
+				break;
+
+			place(position, childTime, childSlot);
+			position = childPosition;
+		}
+
+		place(position, time, slot);
+	}
+
+	private void place(int position, double time, int slot) {
+		heapTimes[position] = time;
+		heapSlots[position] = slot;
+		slotPositions[slot] = position;
+	}
+
+	private void grow() {
+		int capacity = heapTimes.length * 2;
+
+		heapTimes = Arrays.copyOf(heapTimes, capacity);
+		heapSlots = Arrays.copyOf(heapSlots, capacity);
+
+		slotEvents = Arrays.copyOf(slotEvents, capacity);
+		slotPriorities = Arrays.copyOf(slotPriorities, capacity);
+		slotSequenceNumbers = Arrays.copyOf(slotSequenceNumbers, capacity);
+		slotPositions = Arrays.copyOf(slotPositions, capacity);
+
+		freeSlots = Arrays.copyOf(freeSlots, capacity);
+	}
+}
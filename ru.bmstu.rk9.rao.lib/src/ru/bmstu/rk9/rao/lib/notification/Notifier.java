@@ -1,39 +1,67 @@
 package ru.bmstu.rk9.rao.lib.notification;
 
 import java.util.EnumSet;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import ru.bmstu.rk9.rao.lib.notification.Subscription.SubscriptionType;
 
 public class Notifier<Category extends Enum<Category>> {
 
-	private class SubscriptionState {
+	private static class SubscriptionState {
 		private final Subscription subscription = new Subscription();
 		private boolean hadNotifications = false;
+		private volatile boolean hasPendingNotifications = false;
 	}
 
-	private final Map<Category, SubscriptionState> subscriptionStates;
+	private final SubscriptionState[] subscriptionStates;
 
 	public Notifier(Class<Category> enumClass) {
-		subscriptionStates = new ConcurrentHashMap<Category, SubscriptionState>();
+		Category[] categories = enumClass.getEnumConstants();
+		subscriptionStates = new SubscriptionState[categories.length];
 
-		for (Category category : enumClass.getEnumConstants()) {
-			subscriptionStates.put(category, new SubscriptionState());
+		for (Category category : categories) {
+			subscriptionStates[category.ordinal()] = new SubscriptionState();
 		}
 	}
 
+	// When coalescing, LATEST_ONLY subscribers are not notified right away,
+	// but only once per category on the next publishPendingNotifications()
+	private volatile boolean coalescing = false;
+
+	public void setCoalescing(boolean coalescing) {
+		this.coalescing = coalescing;
+		if (!coalescing)
+			publishPendingNotifications();
+	}
+
 	public void notifySubscribers(Category category) {
-		SubscriptionState subscriptionState = subscriptionStates.get(category);
-		Subscription subscription = subscriptionState.subscription;
+		SubscriptionState subscriptionState = subscriptionStates[category.ordinal()];
+
+		fireSubscribers(subscriptionState.subscription, subscriptionState.subscription.everyStepSubscribers);
+
+		if (coalescing)
+			subscriptionState.hasPendingNotifications = true;
+		else
+			fireSubscribers(subscriptionState.subscription, subscriptionState.subscription.latestOnlySubscribers);
+
+		subscriptionState.hadNotifications = true;
+	}
+
+	public void publishPendingNotifications() {
+		for (SubscriptionState subscriptionState : subscriptionStates) {
+			if (!subscriptionState.hasPendingNotifications)
+				continue;
 
-		for (Subscriber subscriber : subscription.subscribers.keySet()) {
-			if (subscription.subscribers.get(subscriber).contains(SubscriptionType.ONE_SHOT))
+			subscriptionState.hasPendingNotifications = false;
+			fireSubscribers(subscriptionState.subscription, subscriptionState.subscription.latestOnlySubscribers);
+		}
+	}
+
+	private void fireSubscribers(Subscription subscription, Subscriber[] subscribers) {
+		for (Subscriber subscriber : subscribers) {
+			if (subscription.isOneShot(subscriber))
 				subscription.removeSubscriber(subscriber);
 			subscriber.fireChange();
 		}
-
-		subscriptionState.hadNotifications = true;
 	}
 
 	public void addSubscriber(Subscriber subscriber, Category category) {
@@ -41,7 +69,7 @@ public class Notifier<Category extends Enum<Category>> {
 	}
 
 	public void addSubscriber(Subscriber subscriber, Category category, EnumSet<SubscriptionType> subscriptionFlags) {
-		SubscriptionState subscriptionState = subscriptionStates.get(category);
+		SubscriptionState subscriptionState = subscriptionStates[category.ordinal()];
 
 		subscriptionState.subscription.addSubscriber(subscriber, subscriptionFlags);
 
@@ -50,10 +78,10 @@ public class Notifier<Category extends Enum<Category>> {
 	}
 
 	public void removeSubscriber(Subscriber subscriber, Category category) {
-		subscriptionStates.get(category).subscription.removeSubscriber(subscriber);
+		subscriptionStates[category.ordinal()].subscription.removeSubscriber(subscriber);
 	}
 
 	public void removeAllSubscribers(Category category) {
-		subscriptionStates.get(category).subscription.subscribers.clear();
+		subscriptionStates[category.ordinal()].subscription.removeAllSubscribers();
 	}
 }
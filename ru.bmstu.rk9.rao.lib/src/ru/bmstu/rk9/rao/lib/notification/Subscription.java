@@ -1,26 +1,60 @@
 package ru.bmstu.rk9.rao.lib.notification;
 
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class Subscription {
 	public enum SubscriptionType {
-		ONE_SHOT, IGNORE_ACCUMULATED
+		ONE_SHOT, IGNORE_ACCUMULATED, LATEST_ONLY
 	};
 
 	protected final Map<Subscriber, Set<SubscriptionType>> subscribers = new ConcurrentHashMap<>();
 
-	void addSubscriber(Subscriber subscriber, EnumSet<SubscriptionType> flags) {
+	// Snapshots of subscribers are rebuilt on every change, so that notifying
+	// does not iterate the map itself
+	volatile Subscriber[] everyStepSubscribers = new Subscriber[0];
+	volatile Subscriber[] latestOnlySubscribers = new Subscriber[0];
+
+	synchronized void addSubscriber(Subscriber subscriber, EnumSet<SubscriptionType> flags) {
 		if (subscribers.put(subscriber, flags) != null)
 			throw new NotifierException(
 					"Cannot add subscriber" + subscriber + ", it is already present in subscription");
+		updateSnapshots();
 	}
 
-	void removeSubscriber(Subscriber subscriber) {
+	synchronized void removeSubscriber(Subscriber subscriber) {
 		if (subscribers.remove(subscriber) == null)
 			throw new NotifierException(
 					"Cannot remove subscriber" + subscriber + ", it is not present in subscription");
+		updateSnapshots();
+	}
+
+	synchronized void removeAllSubscribers() {
+		subscribers.clear();
+		updateSnapshots();
+	}
+
+	boolean isOneShot(Subscriber subscriber) {
+		Set<SubscriptionType> flags = subscribers.get(subscriber);
+		return flags != null && flags.contains(SubscriptionType.ONE_SHOT);
+	}
+
+	private void updateSnapshots() {
+		List<Subscriber> everyStep = new ArrayList<>();
+		List<Subscriber> latestOnly = new ArrayList<>();
+
+		for (Map.Entry<Subscriber, Set<SubscriptionType>> entry : subscribers.entrySet()) {
+			if (entry.getValue().contains(SubscriptionType.LATEST_ONLY))
+				latestOnly.add(entry.getKey());
+			else
+				everyStep.add(entry.getKey());
+		}
+
+		everyStepSubscribers = everyStep.toArray(new Subscriber[everyStep.size()]);
+		latestOnlySubscribers = latestOnly.toArray(new Subscriber[latestOnly.size()]);
 	}
 }
@@ -4,18 +4,22 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.PriorityQueue;
 
 public class CombinationalChoiceFrom<R, PT> {
 	private R set;
 	private RelevantResourcesManager<R> setManager;
-	private PriorityQueue<R> matchingList;
+	private SimpleChoiceFrom.ChoiceMethod<R, R, PT> comparator;
+
+	// Best of combinations found so far, it is created once and then
+	// overwritten by better ones instead of copying every combination
+	private R best = null;
+	private boolean isFound;
 
 	public CombinationalChoiceFrom(R set, SimpleChoiceFrom.ChoiceMethod<R, R, PT> comparator,
 			RelevantResourcesManager<R> setManager) {
 		this.set = set;
 		this.setManager = setManager;
-		matchingList = new PriorityQueue<R>(1, comparator);
+		this.comparator = comparator;
 	}
 
 	public static abstract class Setter<R, T> {
@@ -36,6 +40,8 @@ public class CombinationalChoiceFrom<R, PT> {
 		private Retriever<T> retriever;
 		private SimpleChoiceFrom<R, T, PT> choice;
 		private Setter<R, T> setter;
+		// Place among finders of the choice
+		private int index;
 
 		public Finder(Retriever<T> retriever, SimpleChoiceFrom<R, T, PT> choice, Setter<R, T> setter) {
 			this.retriever = retriever;
@@ -43,33 +49,30 @@ public class CombinationalChoiceFrom<R, PT> {
 			this.setter = setter;
 		}
 
-		public boolean find(R set, Iterator<Finder<R, ?, PT>> finder, PriorityQueue<R> matchingList,
-				RelevantResourcesManager<R> setManager, PT parameters) {
+		// Returns true once search can be stopped, that is when a
+		// combination is found and there is no comparator to look for better
+		// ones
+		public boolean find(R set, Iterator<Finder<R, ?, PT>> finder, CombinationalChoiceFrom<R, PT> choiceFrom,
+				PT parameters) {
 			Collection<T> all = choice.findAll(set, retriever.getResources(), parameters);
-			Iterator<T> iterator = all.iterator();
 			if (finder.hasNext()) {
 				Finder<R, ?, PT> currentFinder = finder.next();
-				while (iterator.hasNext()) {
-					setter.set(set, iterator.next());
-					if (currentFinder.find(set, finder, matchingList, setManager, parameters))
-						if (matchingList.iterator() == null)
-							return true;
+				// Finders after the next one are iterated anew for every
+				// resource of this one
+				for (T a : all) {
+					setter.set(set, a);
+					if (currentFinder.find(set, choiceFrom.finders.listIterator(currentFinder.index + 1), choiceFrom,
+							parameters))
+						return true;
 				}
 				return false;
 			} else {
-				if (!all.isEmpty())
-					if (matchingList.comparator() == null) {
-						setter.set(set, all.iterator().next());
-						return true;
-					} else {
-						for (T a : all) {
-							setter.set(set, a);
-							matchingList.add(setManager.create(set));
-						}
+				for (T a : all) {
+					setter.set(set, a);
+					if (choiceFrom.offer())
 						return true;
-					}
-				else
-					return false;
+				}
+				return false;
 			}
 		}
 	}
@@ -77,22 +80,38 @@ public class CombinationalChoiceFrom<R, PT> {
 	private List<Finder<R, ?, PT>> finders = new ArrayList<Finder<R, ?, PT>>();
 
 	public void addFinder(Finder<R, ?, PT> finder) {
+		finder.index = finders.size();
 		finders.add(finder);
 	}
 
-	public boolean find(PT parameters) {
-		matchingList.clear();
+	// Returns true if search can be stopped at the current combination
+	private boolean offer() {
+		if (comparator == null) {
+			isFound = true;
+			return true;
+		}
+
+		if (best == null)
+			best = setManager.create(set);
+		else if (!isFound || comparator.compare(set, best) < 0)
+			setManager.apply(best, set);
 
+		isFound = true;
+		return false;
+	}
+
+	public boolean find(PT parameters) {
 		if (finders.isEmpty())
 			return true;
 
+		isFound = false;
 		Iterator<Finder<R, ?, PT>> finder = finders.iterator();
 
-		if (finder.next().find(set, finder, matchingList, setManager, parameters) && matchingList.comparator() == null)
+		if (finder.next().find(set, finder, this, parameters))
 			return true;
 
-		if (!matchingList.isEmpty()) {
-			setManager.apply(set, matchingList.poll());
+		if (isFound) {
+			setManager.apply(set, best);
 			return true;
 		} else
 			return false;
@@ -0,0 +1,107 @@
+package ru.bmstu.rk9.rao.lib.pattern;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/*
+ * Combinations of elements of several collections, one element of each, in
+ * order of the collections with the last one changing fastest. Combinations
+ * are made as they are iterated, so finding the first suitable one takes
+ * only as many steps as there are combinations before it.
+ *
+ * Every collection but the first is iterated once and kept in a list, so
+ * elements filtered out of it are checked once rather than once for every
+ * element of the collections before it, and if any of them is empty there
+ * are no combinations at all.
+ */
+public final class Combinations<T> implements Iterable<T> {
+	public Combinations(List<? extends Iterable<?>> sources, Function<Object[], T> factory) {
+		this.sources = sources;
+		this.factory = factory;
+	}
+
+	private final List<? extends Iterable<?>> sources;
+	// Makes combination of elements, the array is reused afterwards
+	private final Function<Object[], T> factory;
+
+	@Override
+	public Iterator<T> iterator() {
+		return new CombinationIterator();
+	}
+
+	private class CombinationIterator implements Iterator<T> {
+		private Iterator<?> first = null;
+		private List<List<?>> rest = null;
+		private final int[] positions = new int[sources.size()];
+		private final Object[] elements = new Object[sources.size()];
+		private boolean hasNext;
+
+		CombinationIterator() {
+			hasNext = !sources.isEmpty() && advanceFirst();
+			if (hasNext)
+				for (int i = 1; i < elements.length; i++)
+					elements[i] = rest.get(i - 1).get(0);
+		}
+
+		private boolean advanceFirst() {
+			if (first == null)
+				first = sources.get(0).iterator();
+
+			if (!first.hasNext())
+				return false;
+
+			elements[0] = first.next();
+
+			// Rest of collections are only needed once there is an element
+			// of the first one
+			if (rest == null) {
+				rest = new ArrayList<>();
+				for (int i = 1; i < sources.size(); i++) {
+					List<Object> elementsOfSource = new ArrayList<>();
+					for (Object element : sources.get(i))
+						elementsOfSource.add(element);
+
+					if (elementsOfSource.isEmpty())
+						return false;
+
+					rest.add(elementsOfSource);
+				}
+			}
+
+			return true;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return hasNext;
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext)
+				throw new NoSuchElementException();
+
+			T combination = factory.apply(elements);
+			advance();
+			return combination;
+		}
+
+		private void advance() {
+			for (int i = elements.length - 1; i > 0; i--) {
+				List<?> source = rest.get(i - 1);
+				if (++positions[i] < source.size()) {
+					elements[i] = source.get(positions[i]);
+					return;
+				}
+
+				positions[i] = 0;
+				elements[i] = source.get(0);
+			}
+
+			hasNext = advanceFirst();
+		}
+	}
+}
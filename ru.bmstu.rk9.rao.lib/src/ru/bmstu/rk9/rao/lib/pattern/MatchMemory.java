@@ -0,0 +1,86 @@
+package ru.bmstu.rk9.rao.lib.pattern;
+
+import java.util.function.Supplier;
+
+import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator;
+import ru.bmstu.rk9.rao.lib.simulator.ModelState;
+
+/*
+ * Partial matches of a pattern kept between checks of an activity. Relevant
+ * resources are selected one after another, each one depending on resource
+ * types it reads and on those selected before it. Result of every stage is
+ * remembered along with versions of the types it has read, so a stage is
+ * evaluated again only if those types have changed or an earlier stage has
+ * been evaluated again, and a failed match is known to fail again without
+ * selecting anything as long as nothing it has read has changed.
+ *
+ * Versions are read after earlier stages have taken their resources, which
+ * they take again when their results are reused, so versions are the same
+ * unless something else has changed.
+ */
+public final class MatchMemory {
+	public MatchMemory(Class<?>[][] readResourceTypes) {
+		this.readResourceTypes = readResourceTypes;
+		this.results = new Object[readResourceTypes.length];
+		this.versions = new long[readResourceTypes.length][];
+	}
+
+	// Stages with null instead of types depend on something else and are
+	// always evaluated
+	private final Class<?>[][] readResourceTypes;
+	private final Object[] results;
+	private final long[][] versions;
+
+	private ModelState modelState = null;
+	// Stages before this one are remembered
+	private int numberOfRemembered = 0;
+
+	@SuppressWarnings("unchecked")
+	final <T> T resolve(int stage, Supplier<T> resolver) {
+		ModelState currentState = CurrentSimulator.getModelState();
+		if (currentState != modelState) {
+			modelState = currentState;
+			numberOfRemembered = 0;
+		}
+
+		Class<?>[] types = readResourceTypes[stage];
+		if (stage < numberOfRemembered && isUnchanged(types, versions[stage]))
+			return (T) results[stage];
+
+		numberOfRemembered = stage;
+		T result = resolver.get();
+
+		if (types != null) {
+			versions[stage] = versionsOf(types, versions[stage]);
+			results[stage] = result;
+			numberOfRemembered = stage + 1;
+		}
+
+		return result;
+	}
+
+	private boolean isUnchanged(Class<?>[] types, long[] typeVersions) {
+		if (types == null)
+			return false;
+
+		for (int i = 0; i < types.length; i++) {
+			if (modelState.getVersion(types[i]) != typeVersions[2 * i]
+					|| modelState.getAccessibilityHash(types[i]) != typeVersions[2 * i + 1])
+				return false;
+		}
+
+		return true;
+	}
+
+	private long[] versionsOf(Class<?>[] types, long[] typeVersions) {
+		if (typeVersions == null)
+			typeVersions = new long[2 * types.length];
+
+		for (int i = 0; i < types.length; i++) {
+			typeVersions[2 * i] = modelState.getVersion(types[i]);
+			typeVersions[2 * i + 1] = modelState.getAccessibilityHash(types[i]);
+		}
+
+		return typeVersions;
+	}
+}
@@ -2,6 +2,7 @@ package ru.bmstu.rk9.rao.lib.pattern;
 
 import ru.bmstu.rk9.rao.lib.database.SerializationConstants;
 import ru.bmstu.rk9.rao.lib.event.Event;
+import ru.bmstu.rk9.rao.lib.event.EventPool;
 import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator;
 
 public abstract class Operation extends Pattern {
@@ -22,26 +23,51 @@ public abstract class Operation extends Pattern {
 	}
 
 	private final void planEnd() {
-		CurrentSimulator.pushEvent(new OperationEvent(CurrentSimulator.getTime() + duration()));
+		double time = CurrentSimulator.getTime() + duration();
+		OperationEvent endEvent = endEventPool != null ? endEventPool.events.obtain(time) : new OperationEvent(time);
+		endEvent.operation = this;
+		endEvent.typeName = getTypeName();
+		CurrentSimulator.pushEvent(endEvent);
 	}
 
-	private class OperationEvent extends Event {
+	private EndEventPool endEventPool = null;
+
+	// Activity running operations of the same type one after another keeps
+	// their end events for reuse, so pooled events live no longer than the
+	// simulator, see Activity
+	public final void setEndEventPool(EndEventPool endEventPool) {
+		this.endEventPool = endEventPool;
+	}
+
+	public static final class EndEventPool {
+		private final EventPool<OperationEvent> events = new EventPool<OperationEvent>(
+				() -> new OperationEvent(0));
+	}
+
+	private static class OperationEvent extends Event {
 		OperationEvent(double time) {
 			this.time = time;
 		}
 
+		private Operation operation;
+		// Name is still needed after execution, when operation is gone
+		private String typeName;
+
 		@Override
 		public String getName() {
-			return Operation.this.getTypeName() + "_endEvent";
+			return typeName + "_endEvent";
 		}
 
 		@Override
 		protected void execute() {
-			Operation.this.end();
-			CurrentSimulator.getDatabase().addOperationEndEntry(Operation.this);
+			operation.end();
+			CurrentSimulator.getDatabase().addOperationEndEntry(operation);
 			CurrentSimulator.getDatabase().addMemorizedResourceEntries(
-					Operation.this.getTypeName() + "." + SerializationConstants.CREATED_RESOURCES, null, null);
-			finish();
+					operation.getTypeName() + "." + SerializationConstants.CREATED_RESOURCES, null, null);
+			operation.finish();
+			// Event may wait in pool for long, and must not keep operation and
+			// resources it has taken
+			operation = null;
 		}
 	}
 }
@@ -2,6 +2,7 @@ package ru.bmstu.rk9.rao.lib.pattern;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 import ru.bmstu.rk9.rao.lib.database.Database;
 import ru.bmstu.rk9.rao.lib.database.SerializationConstants;
@@ -26,6 +27,28 @@ public abstract class Pattern {
 
 	public abstract String getTypeName();
 
+	// Resource types that selection of relevant resources depends on, or null
+	// if it may depend on anything else, such as time or random numbers
+	public Class<?>[] getReadResourceTypes() {
+		return null;
+	}
+
+	// Same for every relevant resource or tuple in order of selection, or null
+	// if none of them is known
+	public Class<?>[][] getRelevantReadResourceTypes() {
+		return null;
+	}
+
+	private MatchMemory matchMemory = null;
+
+	public final void setMatchMemory(MatchMemory matchMemory) {
+		this.matchMemory = matchMemory;
+	}
+
+	protected final <T> T resolveRelevant(int stage, Supplier<T> resolver) {
+		return matchMemory == null ? resolver.get() : matchMemory.resolve(stage, resolver);
+	}
+
 	protected final List<Integer> relevantResourcesNumbers = new ArrayList<Integer>();
 
 	public final List<Integer> getRelevantResourcesNumbers() {
@@ -1,12 +1,10 @@
 package ru.bmstu.rk9.rao.lib.pattern;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
-import java.util.Queue;
-import java.util.LinkedList;
-
-import java.util.PriorityQueue;
 import java.util.Comparator;
 
 public class SimpleChoiceFrom<P, T, PT> {
@@ -29,14 +27,12 @@ public class SimpleChoiceFrom<P, T, PT> {
 
 	public SimpleChoiceFrom(Checker<P, T, PT> checker, ChoiceMethod<P, T, PT> comparator) {
 		this.checker = checker;
-		if (comparator != null) {
-			this.comparator = comparator;
-			matchingList = new PriorityQueue<T>(1, comparator);
-		} else
-			matchingList = new LinkedList<T>();
+		this.comparator = comparator;
 	}
 
-	private Queue<T> matchingList;
+	// Order of all matching resources doesn't matter, only the best one of
+	// them is chosen by comparator
+	private List<T> matchingList = new ArrayList<T>();
 
 	public Collection<T> findAll(P resources, Collection<T> reslist, PT parameters) {
 		matchingList.clear();
@@ -54,20 +50,20 @@ public class SimpleChoiceFrom<P, T, PT> {
 	}
 
 	public T find(P resources, Collection<T> reslist, PT parameters) {
-		matchingList.clear();
 		if (comparator != null)
 			comparator.setPattern(resources, parameters);
 
+		T best = null;
 		T res;
 		for (Iterator<T> iterator = reslist.iterator(); iterator.hasNext();) {
 			res = iterator.next();
 			if (res != null && checker.check(resources, res, parameters))
-				if (matchingList instanceof LinkedList)
+				if (comparator == null)
 					return res;
-				else
-					matchingList.add(res);
+				else if (best == null || comparator.compare(res, best) < 0)
+					best = res;
 		}
 
-		return matchingList.poll();
+		return best;
 	}
 }
@@ -11,10 +11,11 @@ public class Generate implements Block {
 
 	public Generate(Supplier<Double> interval) {
 		this.interval = interval;
-		CurrentSimulator.pushEvent(new GenerateEvent(interval.get()));
+		generateEvent.plan(interval.get());
 	}
 
 	private Supplier<Double> interval;
+	private final GenerateEvent generateEvent = new GenerateEvent();
 	private boolean ready = false;
 	private TransactStorage transactStorage = new TransactStorage();
 	private OutputDock outputDock = () -> transactStorage.pullTransact();
@@ -35,15 +36,17 @@ public class Generate implements Block {
 		transactStorage.pushTransact(transact);
 		CurrentSimulator.getDatabase().addProcessEntry(ProcessEntryType.GENERATE, transact.getNumber(), null);
 
-		Double time = CurrentSimulator.getTime() + interval.get();
-		CurrentSimulator.pushEvent(new GenerateEvent(time));
+		generateEvent.plan(CurrentSimulator.getTime() + interval.get());
 		ready = false;
 		return BlockStatus.SUCCESS;
 	}
 
+	// At most one generation is pending at a time, so the same event is
+	// planned again after each generation
 	private class GenerateEvent extends Event {
-		public GenerateEvent(double time) {
+		private void plan(double time) {
 			this.time = time;
+			CurrentSimulator.pushEvent(this);
 		}
 
 		@Override
@@ -6,6 +6,7 @@ import java.util.function.Supplier;
 import ru.bmstu.rk9.rao.lib.database.Database.ProcessEntryType;
 import ru.bmstu.rk9.rao.lib.database.Database.TypeSize;
 import ru.bmstu.rk9.rao.lib.event.Event;
+import ru.bmstu.rk9.rao.lib.event.EventPool;
 import ru.bmstu.rk9.rao.lib.process.Process.BlockStatus;
 import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator;
 
@@ -15,6 +16,7 @@ public class Hold implements Block {
 	private TransactStorage transactStorage = new TransactStorage();
 	private OutputDock outputDock = () -> transactStorage.pullTransact();
 	private Supplier<Double> duration;
+	private final EventPool<HoldEvent> holdEventPool = new EventPool<HoldEvent>(() -> new HoldEvent());
 
 	public static enum HoldAction {
 		IN("in"), OUT("out");
@@ -53,8 +55,10 @@ public class Hold implements Block {
 			return BlockStatus.NOTHING_TO_DO;
 
 		addHoldEntryToDatabase(transact, HoldAction.IN);
-		Double time = CurrentSimulator.getTime() + duration.get();
-		CurrentSimulator.pushEvent(new HoldEvent(transact, time));
+		double time = CurrentSimulator.getTime() + duration.get();
+		HoldEvent holdEvent = holdEventPool.obtain(time);
+		holdEvent.transact = transact;
+		CurrentSimulator.pushEvent(holdEvent);
 		return BlockStatus.SUCCESS;
 	}
 
@@ -67,11 +71,6 @@ public class Hold implements Block {
 	private class HoldEvent extends Event {
 		private Transact transact;
 
-		public HoldEvent(Transact transact, double time) {
-			this.time = time;
-			this.transact = transact;
-		}
-
 		@Override
 		public String getName() {
 			return null;
@@ -82,6 +81,7 @@ public class Hold implements Block {
 			if (!transactStorage.pushTransact(transact))
 				throw new ProcessException("Transact collision in Hold block");
 			addHoldEntryToDatabase(transact, HoldAction.OUT);
+			transact = null;
 		}
 	}
 }
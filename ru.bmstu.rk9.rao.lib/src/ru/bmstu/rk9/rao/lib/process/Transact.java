@@ -24,6 +24,11 @@ public class Transact extends ComparableResource<Transact> {
 		return false;
 	}
 
+	@Override
+	public int stateHash() {
+		return 0;
+	}
+
 	public static void eraseTransact(Transact transact) {
 		transact.erase();
 	}
@@ -41,6 +46,8 @@ public class Transact extends ComparableResource<Transact> {
 
 	@Override
 	public Transact deepCopy() {
-		return new Transact();
+		Transact copy = new Transact();
+		copy.setNumber(number);
+		return copy;
 	}
 }
@@ -5,6 +5,9 @@ import org.eclipse.xtext.xbase.lib.Functions.Function1;
 public abstract class ComparableResource<T> extends Resource {
 	public abstract boolean checkEqual(T other);
 
+	// Resources equal by checkEqual have to have equal hashes
+	public abstract int stateHash();
+
 	public abstract T deepCopy();
 
 	@SuppressWarnings("unchecked")
@@ -17,7 +20,7 @@ public abstract class ComparableResource<T> extends Resource {
 
 	@SuppressWarnings("unchecked")
 	public T shallowCopy() {
-		isShallowCopy = true;
+		owner = ResourceManager.SHARED;
 		return (T) this;
 	}
 }
@@ -9,36 +9,60 @@ public abstract class Resource extends RaoNameable implements Serializable {
 
 	public abstract void erase();
 
-	public final Integer getNumber() {
+	public final int getNumber() {
 		return number;
 	}
 
-	public final void setNumber(Integer number) {
-		if (this.number != null)
+	public final void setNumber(int number) {
+		if (this.number != NO_NUMBER)
 			throw new RaoLibException("Invalid attempt to set resource number. It is already set to " + number);
 
 		this.number = number;
 	}
 
-	protected Integer number = null;
+	public static final int NO_NUMBER = -1;
+
+	protected int number = NO_NUMBER;
 
 	public final void take() {
 		refcounter++;
+		if (refcounter == 0 || refcounter == 1)
+			accessibilityChanged();
 	}
 
 	public final void put() {
 		refcounter--;
+		if (refcounter == 0 || refcounter == -1)
+			accessibilityChanged();
+	}
+
+	private void accessibilityChanged() {
+		if (accessibilityTracker != null)
+			accessibilityTracker.accessibilityChanged(this);
 	}
 
+	ResourceManager.AccessibilityTracker accessibilityTracker = null;
+
 	public final boolean isAccessible() {
 		return refcounter == 0;
 	}
 
 	protected int refcounter = 0;
 
+	// Resource is shared with copies of model state once the manager that
+	// owns it has been copied, and has to be copied before being changed
 	public final boolean isShallowCopy() {
-		return isShallowCopy;
+		return owner != null && owner.isShared;
+	}
+
+	ResourceManager.Owner owner = null;
+
+	// Has to be called after every change of the resource, so that hash of
+	// model state it belongs to is kept up to date
+	protected final void stateChanged() {
+		if (owner != null && owner.manager != null)
+			owner.manager.updateStateHash(this);
 	}
 
-	protected boolean isShallowCopy = false;
+	int hashInState = 0;
 }
@@ -0,0 +1,244 @@
+package ru.bmstu.rk9.rao.lib.resource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import ru.bmstu.rk9.rao.lib.exception.RaoLibException;
+
+/*
+ * Index of resources of a manager by value of one of their parameters. Sets
+ * of resource numbers are kept for every value, in a hash map, or in a tree
+ * map if values are ordered, so that resources with the least or the
+ * greatest value or values within a range are found without checking all of
+ * them. Resources are found in number order for every value, as they would
+ * be by iterating the manager.
+ *
+ * Index is updated by the manager whenever a resource is added, erased or
+ * changed, and only accessibility of resources is checked when it is
+ * looked up. Copies of the manager share its indexes, and the first change
+ * of a shared index copies it.
+ *
+ * Values are compared the way they are in models, so negative and positive
+ * zeros are the same value.
+ */
+public final class ResourceIndex<T extends ComparableResource<T>> {
+	private static final Object NULL_KEY = new Object();
+	private static final Comparator<Object> KEY_ORDER = ResourceIndex::compareKeys;
+
+	ResourceIndex(ResourceManager<T> manager, Function<? super T, ?> key, boolean isSorted) {
+		this(manager, key, isSorted, isSorted ? new TreeMap<>(KEY_ORDER) : new HashMap<>());
+
+		for (T resource : manager.getAll())
+			add(resource);
+	}
+
+	private ResourceIndex(ResourceManager<T> manager, Function<? super T, ?> key, boolean isSorted,
+			Map<Object, Numbers> buckets) {
+		this.manager = manager;
+		this.key = key;
+		this.isSorted = isSorted;
+		this.buckets = buckets;
+	}
+
+	private final ResourceManager<T> manager;
+	private final Function<? super T, ?> key;
+	private final boolean isSorted;
+	private Map<Object, Numbers> buckets;
+
+	// Keys resources are indexed under, by resource numbers
+	private Object[] keys = new Object[16];
+	private boolean isShared = false;
+
+	final boolean isSorted() {
+		return isSorted;
+	}
+
+	// Index of the copy of the manager, which shares everything with this one
+	// until either of them is changed
+	final ResourceIndex<T> share(ResourceManager<T> copy) {
+		ResourceIndex<T> index = new ResourceIndex<>(copy, key, isSorted, buckets);
+		index.keys = keys;
+		index.isShared = true;
+		isShared = true;
+		return index;
+	}
+
+	private void ensureOwned() {
+		if (!isShared)
+			return;
+
+		Map<Object, Numbers> owned = isSorted ? new TreeMap<>(KEY_ORDER) : new HashMap<>();
+		owned.putAll(buckets);
+		owned.replaceAll((k, numbers) -> numbers.copy());
+
+		buckets = owned;
+		keys = keys.clone();
+		isShared = false;
+	}
+
+	final void add(T resource) {
+		ensureOwned();
+
+		Object resourceKey = keyOf(resource);
+		int number = resource.getNumber();
+
+		if (number >= keys.length)
+			keys = Arrays.copyOf(keys, Math.max(number + 1, 2 * keys.length));
+
+		keys[number] = resourceKey;
+		buckets.computeIfAbsent(resourceKey, k -> new Numbers()).add(number);
+	}
+
+	final void remove(int number) {
+		if (number >= keys.length || keys[number] == null)
+			return;
+
+		ensureOwned();
+
+		Object resourceKey = keys[number];
+		keys[number] = null;
+
+		Numbers numbers = buckets.get(resourceKey);
+		numbers.remove(number);
+		if (numbers.size == 0)
+			buckets.remove(resourceKey);
+	}
+
+	final void update(T resource) {
+		int number = resource.getNumber();
+		if (number < keys.length && keys[number] != null && keys[number].equals(keyOf(resource)))
+			return;
+
+		remove(number);
+		add(resource);
+	}
+
+	public final List<T> getAccessible(Object value) {
+		List<T> resources = new ArrayList<>();
+		Numbers numbers = buckets.get(keyOf(value));
+		if (numbers != null)
+			addAccessible(numbers, resources);
+
+		return resources;
+	}
+
+	// Both ends of the range are included
+	public final List<T> getAccessibleBetween(Object from, Object to) {
+		List<T> resources = new ArrayList<>();
+		NavigableMap<Object, Numbers> range = sortedBuckets().subMap(keyOf(from), true, keyOf(to),
+				true);
+		for (Numbers numbers : range.values())
+			addAccessible(numbers, resources);
+
+		return resources;
+	}
+
+	public final T getAccessibleWithMin() {
+		return firstAccessible(sortedBuckets().values());
+	}
+
+	public final T getAccessibleWithMax() {
+		return firstAccessible(sortedBuckets().descendingMap().values());
+	}
+
+	private T firstAccessible(Collection<Numbers> ordered) {
+		for (Numbers numbers : ordered) {
+			for (int i = 0; i < numbers.size; i++) {
+				T resource = manager.getResource(numbers.numbers[i]);
+				if (resource != null && resource.isAccessible())
+					return resource;
+			}
+		}
+
+		return null;
+	}
+
+	private void addAccessible(Numbers numbers, List<T> resources) {
+		for (int i = 0; i < numbers.size; i++) {
+			T resource = manager.getResource(numbers.numbers[i]);
+			if (resource != null && resource.isAccessible())
+				resources.add(resource);
+		}
+	}
+
+	private NavigableMap<Object, Numbers> sortedBuckets() {
+		if (!isSorted)
+			throw new RaoLibException("Attempting to find resources by order of unordered values");
+
+		return (NavigableMap<Object, Numbers>) buckets;
+	}
+
+	private Object keyOf(T resource) {
+		return keyOf(key.apply(resource));
+	}
+
+	private static Object keyOf(Object value) {
+		if (value == null)
+			return NULL_KEY;
+
+		if (value instanceof Double && (Double) value == 0.0)
+			return 0.0;
+
+		if (value instanceof Float && (Float) value == 0.0f)
+			return 0.0f;
+
+		return value;
+	}
+
+	// Resources with null values go first
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static int compareKeys(Object key, Object other) {
+		if (key == NULL_KEY || other == NULL_KEY)
+			return key == other ? 0 : key == NULL_KEY ? -1 : 1;
+
+		return ((Comparable) key).compareTo(other);
+	}
+
+	// Sorted resource numbers. New resources have the greatest numbers, so
+	// they are appended
+	private static final class Numbers {
+		int[] numbers = new int[2];
+		int size = 0;
+
+		Numbers copy() {
+			Numbers copy = new Numbers();
+			copy.numbers = numbers.clone();
+			copy.size = size;
+			return copy;
+		}
+
+		void add(int number) {
+			int index = size;
+			if (size > 0 && numbers[size - 1] >= number) {
+				index = Arrays.binarySearch(numbers, 0, size, number);
+				if (index >= 0)
+					return;
+				index = -index - 1;
+			}
+
+			if (size == numbers.length)
+				numbers = Arrays.copyOf(numbers, 2 * size);
+
+			System.arraycopy(numbers, index, numbers, index + 1, size - index);
+			numbers[index] = number;
+			size++;
+		}
+
+		void remove(int number) {
+			int index = Arrays.binarySearch(numbers, 0, size, number);
+			if (index < 0)
+				return;
+
+			System.arraycopy(numbers, index + 1, numbers, index, size - index - 1);
+			size--;
+		}
+	}
+}
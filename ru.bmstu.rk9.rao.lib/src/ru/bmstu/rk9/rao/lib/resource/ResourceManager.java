@@ -1,95 +1,389 @@
 package ru.bmstu.rk9.rao.lib.resource;
 
+import java.util.AbstractCollection;
 import java.util.Collection;
-import java.util.Collections;
-
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map.Entry;
-import java.util.SortedMap;
-import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
 
 import ru.bmstu.rk9.rao.lib.exception.RaoLibException;
 
+// Copy-on-write 32-way trie of resources by number, shared between copies
+// of the manager, with masks of live and accessible subtrees
 public class ResourceManager<T extends ComparableResource<T>> {
-	private SortedMap<Integer, T> resources = new ConcurrentSkipListMap<Integer, T>();
-	private Integer numberOfResources = 0;
+	private static final int BITS = 5;
+	private static final int WIDTH = 1 << BITS;
+	private static final int MASK = WIDTH - 1;
+	private static final int NO_NUMBER = -1;
+
+	static final class Owner {
+		private Owner(ResourceManager<?> manager) {
+			this.manager = manager;
+		}
+
+		final ResourceManager<?> manager;
+		boolean isShared = false;
+	}
+
+	static final Owner SHARED = new Owner(null);
+
+	static {
+		SHARED.isShared = true;
+	}
+
+	private static final class Node {
+		Node(Owner owner) {
+			this.owner = owner;
+			this.slots = new Object[WIDTH];
+		}
+
+		Node(Owner owner, Node node) {
+			this.owner = owner;
+			this.slots = node.slots.clone();
+			this.liveMask = node.liveMask;
+			this.accessibleMask = node.accessibleMask;
+		}
+
+		final Owner owner;
+		final Object[] slots;
+		int liveMask = 0;
+		int accessibleMask = 0;
+	}
+
+	private Node root = null;
+	private int shift = 0;
+	private int numberOfResources = 0;
+	private int numberOfAlive = 0;
+	private int numberOfAccessible = 0;
+	private int modifications = 0;
+	private Owner owner = new Owner(this);
+	private int stateHash = 0;
+	private long version = 0;
+	private long accessibilityHash = 0;
+
+	private AccessibilityTracker tracker = new AccessibilityTracker();
+	private long accessibilityVersion = 0;
+
+	private final Collection<T> all = new Resources(false);
+	private final Collection<T> accessible = new Resources(true);
+
+	// Numbers survive copy on write, so copies share the index
+	private Map<String, Integer> numbersByName = new HashMap<>();
+	private boolean isNameIndexShared = false;
+
+	private final Map<String, ResourceIndex<T>> indexes = new HashMap<>();
 
 	public ResourceManager() {
-		this.numberOfResources = 0;
 	}
 
 	public void addResource(T res) {
-		Integer number = numberOfResources++;
+		if (res.getName() != null)
+			checkNameUnique(res.getName());
 
+		int number = numberOfResources;
 		res.setNumber(number);
-		resources.put(number, res);
+		res.owner = owner;
+		res.accessibilityTracker = tracker;
+		res.hashInState = hashInState(res);
+		stateHash += res.hashInState;
+
+		set(number, res);
+		numberOfResources++;
+		numberOfAlive++;
+		version++;
+
+		if (res.getName() != null) {
+			ensureNameIndexOwned();
+			numbersByName.put(res.getName(), number);
+		}
+
+		for (ResourceIndex<T> index : indexes.values())
+			index.add(res);
 	}
 
 	public void eraseResource(T res) {
-		Integer number = res.getNumber();
+		T current = getResource(res.getNumber());
+		if (current == null)
+			return;
 
-		resources.remove(number);
+		stateHash -= current.hashInState;
+		set(res.getNumber(), null);
+		numberOfAlive--;
+		version++;
+
+		for (ResourceIndex<T> index : indexes.values())
+			index.remove(res.getNumber());
+
+		if (res.getName() != null) {
+			Integer indexedNumber = numbersByName.get(res.getName());
+			if (indexedNumber != null && indexedNumber == res.getNumber()) {
+				ensureNameIndexOwned();
+				numbersByName.remove(res.getName());
+			}
+		}
 	}
 
+	@SuppressWarnings("unchecked")
 	public T getResource(int number) {
-		return resources.get(number);
+		Node leaf = leafOf(number);
+		return leaf == null ? null : (T) leaf.slots[number & MASK];
 	}
 
-	// TODO do we need more efficient way to get by name?
+	// Model resources are named after being added, so a miss rebuilds the index
 	public T getResource(String name) {
-		Collection<T> resources = getAll().stream().filter(r -> r.getName().equals(name)).collect(Collectors.toList());
-		if (resources.size() != 1)
-			throw new RaoLibException(
-					"Exactly one resource with name \"" + name + "\" should exist, instead found " + resources.size());
+		T resource = getIndexedResource(name);
+		if (resource != null)
+			return resource;
+
+		rebuildNameIndex();
+
+		resource = getIndexedResource(name);
+		if (resource == null)
+			throw new RaoLibException("Exactly one resource with name \"" + name + "\" should exist, instead found 0");
+
+		return resource;
+	}
+
+	private T getIndexedResource(String name) {
+		Integer number = numbersByName.get(name);
+		if (number == null)
+			return null;
+
+		T resource = getResource(number);
+		if (resource == null || !name.equals(resource.getName()))
+			return null;
+
+		return resource;
+	}
+
+	private void checkNameUnique(String name) {
+		if (getIndexedResource(name) != null)
+			throwNotUnique(name);
+	}
+
+	private void rebuildNameIndex() {
+		Map<String, Integer> index = new HashMap<>();
+		for (T resource : all) {
+			if (resource.getName() == null)
+				continue;
+
+			if (index.put(resource.getName(), resource.getNumber()) != null)
+				throwNotUnique(resource.getName());
+		}
+
+		numbersByName = index;
+		isNameIndexShared = false;
+	}
+
+	private void throwNotUnique(String name) {
+		long count = all.stream().filter(r -> name.equals(r.getName())).count();
+		throw new RaoLibException("Exactly one resource with name \"" + name + "\" should exist, instead found " + count);
+	}
+
+	private void ensureNameIndexOwned() {
+		if (!isNameIndexShared)
+			return;
 
-		return resources.iterator().next();
+		numbersByName = new HashMap<>(numbersByName);
+		isNameIndexShared = false;
 	}
 
 	public Collection<T> getAll() {
-		return Collections.unmodifiableCollection(resources.values());
+		return all;
 	}
 
 	public Collection<T> getAccessible() {
-		return Collections.unmodifiableCollection(
-				resources.values().stream().filter((res) -> res.isAccessible()).collect(Collectors.toList()));
+		return accessible;
+	}
+
+	// Last changes of accessibility, replayed by managers catching up on them
+	static class AccessibilityTracker {
+		private static final int LOG_SIZE = 64;
+
+		private final Resource[] changed = new Resource[LOG_SIZE];
+		private long version = 0;
+		private ResourceManager<?> trackingManager = null;
+
+		final void accessibilityChanged(Resource resource) {
+			changed[(int) (version++ % LOG_SIZE)] = resource;
+
+			if (trackingManager != null) {
+				trackingManager.updateAccessibility(resource);
+				trackingManager.accessibilityVersion = version;
+			}
+		}
+	}
+
+	private void updateAccessibility(Resource resource) {
+		Node leaf = leafOf(resource.number);
+		if (leaf == null || leaf.slots[resource.number & MASK] != resource)
+			return;
+
+		boolean isMarked = (leaf.accessibleMask & (1 << (resource.number & MASK))) != 0;
+		if (isMarked != resource.isAccessible())
+			set(resource.number, resource);
+	}
+
+	private void ensureAccessibilityTracked() {
+		if (tracker.trackingManager == this)
+			return;
+
+		if (tracker.version - accessibilityVersion > AccessibilityTracker.LOG_SIZE) {
+			for (T resource : all)
+				updateAccessibility(resource);
+		} else {
+			for (long version = accessibilityVersion; version < tracker.version; version++)
+				updateAccessibility(tracker.changed[(int) (version % AccessibilityTracker.LOG_SIZE)]);
+		}
+
+		accessibilityVersion = tracker.version;
+		tracker.trackingManager = this;
 	}
 
 	public T copyOnWrite(T resource) {
-		resource.isShallowCopy = false;
-		T copy = resource.deepCopy();
-		resources.put(resource.number, copy);
+		T current = getResource(resource.number);
+		if (current == null)
+			throw new RaoLibException("Attempting to copy erased resource " + resource.getName());
+
+		// Resource might have already been copied through another reference
+		if (current.owner == owner)
+			return current;
+
+		T copy = current.deepCopy();
+		copy.owner = owner;
+		copy.accessibilityTracker = tracker;
+		copy.hashInState = current.hashInState;
+		set(copy.number, copy);
 		return copy;
 	}
 
 	public ResourceManager<T> deepCopy() {
-		return copy(false);
+		ResourceManager<T> copy = new ResourceManager<>();
+
+		for (T resource : all) {
+			T resourceCopy = resource.deepCopy();
+			resourceCopy.owner = copy.owner;
+			resourceCopy.accessibilityTracker = copy.tracker;
+			resourceCopy.hashInState = resource.hashInState;
+			resourceCopy.refcounter = resource.refcounter;
+			copy.set(resource.number, resourceCopy);
+		}
+		copy.numberOfResources = numberOfResources;
+		copy.numberOfAlive = numberOfAlive;
+		copy.stateHash = stateHash;
+		copy.version = version;
+
+		// Parallel search copies the same state at once, so the source is
+		// left as it is
+		copy.numbersByName = new HashMap<>(numbersByName);
+		return copy;
 	}
 
 	public ResourceManager<T> shallowCopy() {
-		return copy(true);
+		ResourceManager<T> copy = new ResourceManager<>();
+
+		copy.root = root;
+		copy.shift = shift;
+		copy.numberOfResources = numberOfResources;
+		copy.numberOfAlive = numberOfAlive;
+		copy.numberOfAccessible = numberOfAccessible;
+		copy.stateHash = stateHash;
+		copy.version = version;
+		copy.accessibilityHash = accessibilityHash;
+
+		copy.tracker = tracker;
+		copy.accessibilityVersion = accessibilityVersion;
+
+		for (Map.Entry<String, ResourceIndex<T>> index : indexes.entrySet())
+			copy.indexes.put(index.getKey(), index.getValue().share(copy));
+
+		share();
+
+		shareNameIndex(copy);
+		return copy;
 	}
 
-	private ResourceManager<T> copy(boolean isShallow) {
-		ResourceManager<T> copy = new ResourceManager<>();
+	// Everything owned so far is copied on its next change
+	public void share() {
+		owner.isShared = true;
+		owner = new Owner(this);
+	}
+
+	private void shareNameIndex(ResourceManager<T> copy) {
+		copy.numbersByName = numbersByName;
+		copy.isNameIndexShared = true;
+		isNameIndexShared = true;
+	}
+
+	public int stateHash() {
+		return stateHash;
+	}
+
+	@SuppressWarnings("unchecked")
+	void updateStateHash(Resource resource) {
+		if (getResource(resource.number) != resource)
+			return;
 
-		copy.numberOfResources = this.numberOfResources;
-		for (Entry<Integer, T> entry : this.resources.entrySet()) {
-			copy.resources.put(entry.getKey(),
-					isShallow ? entry.getValue().shallowCopy() : entry.getValue().deepCopy());
+		int hash = hashInState(resource);
+		stateHash += hash - resource.hashInState;
+		resource.hashInState = hash;
+		version++;
+
+		for (ResourceIndex<T> index : indexes.values())
+			index.update((T) resource);
+	}
+
+	public ResourceIndex<T> getIndex(String parameterName, Function<? super T, ?> parameter, boolean isSorted) {
+		ResourceIndex<T> index = indexes.get(parameterName);
+		if (index == null || index.isSorted() != isSorted) {
+			index = new ResourceIndex<>(this, parameter, isSorted);
+			indexes.put(parameterName, index);
 		}
 
-		return copy;
+		return index;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public long getAccessibilityHash() {
+		ensureAccessibilityTracked();
+		return accessibilityHash;
+	}
+
+	private static long hashOfNumber(int number) {
+		long hash = (number + 1) * 0x9E3779B97F4A7C15L;
+		hash ^= hash >>> 32;
+		hash *= 0xD6E8FEB86659FD93L;
+		return hash ^ (hash >>> 32);
+	}
+
+	private static int hashInState(Resource resource) {
+		int hash = resource.number * 0x9E3779B9 ^ ((ComparableResource<?>) resource).stateHash();
+		hash ^= hash >>> 16;
+		hash *= 0x85EBCA6B;
+		hash ^= hash >>> 13;
+		hash *= 0xC2B2AE35;
+		return hash ^ (hash >>> 16);
 	}
 
 	public boolean checkEqual(ResourceManager<T> other) {
-		if (this.resources.size() != other.resources.size())
+		if (this.numberOfAlive != other.numberOfAlive)
 			return false;
 
-		Iterator<T> itThis = this.resources.values().iterator();
-		Iterator<T> itOther = other.resources.values().iterator();
+		if (this.shift == other.shift) {
+			Boolean isEqual = checkEqual(this.root, other.root, shift);
+			if (isEqual != null)
+				return isEqual;
+		}
+
+		Iterator<T> itThis = this.all.iterator();
+		Iterator<T> itOther = other.all.iterator();
 
-		for (int i = 0; i < this.resources.size(); i++) {
+		for (int i = 0; i < this.numberOfAlive; i++) {
 			T resThis = itThis.next();
 			T resOther = itOther.next();
 
@@ -98,4 +392,182 @@ public class ResourceManager<T extends ComparableResource<T>> {
 		}
 		return true;
 	}
+
+	// Null if numbers of resources differ, shared subtrees are skipped
+	@SuppressWarnings("unchecked")
+	private Boolean checkEqual(Node node, Node other, int level) {
+		if (node == other)
+			return true;
+
+		if (node == null || other == null || node.liveMask != other.liveMask)
+			return null;
+
+		for (int mask = node.liveMask; mask != 0; mask &= mask - 1) {
+			int index = Integer.numberOfTrailingZeros(mask);
+
+			if (level == 0) {
+				T resource = (T) node.slots[index];
+				T resourceOther = (T) other.slots[index];
+				if (resource != resourceOther && !resource.checkEqual(resourceOther))
+					return false;
+			} else {
+				Boolean isEqual = checkEqual((Node) node.slots[index], (Node) other.slots[index], level - BITS);
+				if (isEqual == null || !isEqual)
+					return isEqual;
+			}
+		}
+
+		return true;
+	}
+
+	private Node leafOf(int number) {
+		if (number < 0 || (number >>> shift) >>> BITS != 0)
+			return null;
+
+		Node node = root;
+		for (int level = shift; level > 0 && node != null; level -= BITS)
+			node = (Node) node.slots[(number >>> level) & MASK];
+
+		return node;
+	}
+
+	private void set(int number, Resource resource) {
+		while ((number >>> shift) >>> BITS != 0) {
+			if (root != null) {
+				Node grown = new Node(owner);
+				grown.slots[0] = root;
+				grown.liveMask = 1;
+				grown.accessibleMask = root.accessibleMask != 0 ? 1 : 0;
+				root = grown;
+			}
+			shift += BITS;
+		}
+
+		root = set(root, shift, number, resource);
+		modifications++;
+	}
+
+	// Returns the node, its copy if it is shared, or null if it is empty
+	private Node set(Node node, int level, int number, Resource resource) {
+		if (node == null)
+			node = new Node(owner);
+		else if (node.owner != owner)
+			node = new Node(owner, node);
+
+		int index = (number >>> level) & MASK;
+		int bit = 1 << index;
+		boolean isLive;
+		boolean isAccessible;
+
+		if (level == 0) {
+			node.slots[index] = resource;
+			isLive = resource != null;
+			isAccessible = isLive && resource.isAccessible();
+
+			if (isAccessible != ((node.accessibleMask & bit) != 0)) {
+				numberOfAccessible += isAccessible ? 1 : -1;
+				accessibilityHash ^= hashOfNumber(number);
+			}
+		} else {
+			Node child = set((Node) node.slots[index], level - BITS, number, resource);
+			node.slots[index] = child;
+			isLive = child != null;
+			isAccessible = isLive && child.accessibleMask != 0;
+		}
+
+		node.liveMask = isLive ? node.liveMask | bit : node.liveMask & ~bit;
+		node.accessibleMask = isAccessible ? node.accessibleMask | bit : node.accessibleMask & ~bit;
+
+		return node.liveMask == 0 ? null : node;
+	}
+
+	private static int nextNumber(Node node, int level, int base, int from, boolean accessibleOnly) {
+		int index = from <= base ? 0 : (from - base) >>> level;
+		if (index >= WIDTH)
+			return NO_NUMBER;
+
+		int mask = (accessibleOnly ? node.accessibleMask : node.liveMask) & (-1 << index);
+		for (; mask != 0; mask &= mask - 1) {
+			int childIndex = Integer.numberOfTrailingZeros(mask);
+			int childBase = base + (childIndex << level);
+			if (level == 0)
+				return childBase;
+
+			int number = nextNumber((Node) node.slots[childIndex], level - BITS, childBase, from, accessibleOnly);
+			if (number != NO_NUMBER)
+				return number;
+		}
+
+		return NO_NUMBER;
+	}
+
+	// Live view in number order, which may be changed while it is iterated
+	private class Resources extends AbstractCollection<T> {
+		Resources(boolean accessibleOnly) {
+			this.accessibleOnly = accessibleOnly;
+		}
+
+		private final boolean accessibleOnly;
+
+		@Override
+		public int size() {
+			if (!accessibleOnly)
+				return numberOfAlive;
+
+			ensureAccessibilityTracked();
+			return numberOfAccessible;
+		}
+
+		@Override
+		public Iterator<T> iterator() {
+			if (accessibleOnly)
+				ensureAccessibilityTracked();
+
+			return new Iterator<T>() {
+				private int from = 0;
+				private int next = NO_NUMBER;
+				private Node leaf = null;
+				private int expectedModifications = modifications;
+
+				@Override
+				public boolean hasNext() {
+					if (expectedModifications != modifications) {
+						expectedModifications = modifications;
+						next = NO_NUMBER;
+						leaf = null;
+					}
+
+					if (next != NO_NUMBER)
+						return true;
+
+					if (leaf != null && (from & MASK) != 0) {
+						int mask = (accessibleOnly ? leaf.accessibleMask : leaf.liveMask) & (-1 << (from & MASK));
+						if (mask != 0) {
+							next = (from & ~MASK) + Integer.numberOfTrailingZeros(mask);
+							return true;
+						}
+					}
+
+					if (root == null)
+						return false;
+
+					next = nextNumber(root, shift, 0, from, accessibleOnly);
+					leaf = next == NO_NUMBER ? null : leafOf(next);
+					return next != NO_NUMBER;
+				}
+
+				@SuppressWarnings("unchecked")
+				@Override
+				public T next() {
+					if (!hasNext())
+						throw new NoSuchElementException();
+
+					T resource = (T) leaf.slots[next & MASK];
+					from = next + 1;
+					next = NO_NUMBER;
+					return resource;
+				}
+			};
+		}
+	}
 }
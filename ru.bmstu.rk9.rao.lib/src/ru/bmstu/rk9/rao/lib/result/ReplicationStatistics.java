@@ -0,0 +1,105 @@
+package ru.bmstu.rk9.rao.lib.result;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.math3.distribution.TDistribution;
+import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
+
+import ru.bmstu.rk9.rao.lib.json.JSONArray;
+import ru.bmstu.rk9.rao.lib.json.JSONObject;
+
+/*
+ * Merges data of results collected over independent replications of a model.
+ * Every numeric value a result reports (mean, last value, etc.) is treated as
+ * one observation per replication, and its mean over replications is reported
+ * along with Student's confidence interval.
+ */
+public class ReplicationStatistics {
+	public static final String NAME = "name";
+	public static final String STATISTICS = "statistics";
+	public static final String MEAN = "mean";
+	public static final String STANDARD_DEVIATION = "standard_deviation";
+	public static final String CONFIDENCE_LOW = "confidence_low";
+	public static final String CONFIDENCE_HIGH = "confidence_high";
+	public static final String REPLICATIONS = "replications";
+
+	public ReplicationStatistics(double confidenceLevel) {
+		this.confidenceLevel = confidenceLevel;
+	}
+
+	private final double confidenceLevel;
+	private final Map<String, Map<String, SummaryStatistics>> resultsStatistics = new TreeMap<>();
+
+	public final double getConfidenceLevel() {
+		return confidenceLevel;
+	}
+
+	// Takes data of results as returned by AbstractResult.getData()
+	public final synchronized void addReplication(List<JSONObject> resultsData) {
+		for (JSONObject resultData : resultsData) {
+			String name = resultData.optString(NAME);
+			Map<String, SummaryStatistics> statistics = resultsStatistics.get(name);
+			if (statistics == null) {
+				statistics = new TreeMap<>();
+				resultsStatistics.put(name, statistics);
+			}
+
+			for (String key : resultData.keySet()) {
+				if (key.equals(NAME))
+					continue;
+
+				Object value = resultData.get(key);
+				if (!(value instanceof Number))
+					continue;
+
+				SummaryStatistics summary = statistics.get(key);
+				if (summary == null) {
+					summary = new SummaryStatistics();
+					statistics.put(key, summary);
+				}
+				summary.addValue(((Number) value).doubleValue());
+			}
+		}
+	}
+
+	public final synchronized JSONArray getData() {
+		JSONArray data = new JSONArray();
+
+		for (Map.Entry<String, Map<String, SummaryStatistics>> result : resultsStatistics.entrySet()) {
+			JSONObject statisticsData = new JSONObject();
+
+			for (Map.Entry<String, SummaryStatistics> statistic : result.getValue().entrySet()) {
+				SummaryStatistics summary = statistic.getValue();
+				double mean = summary.getMean();
+				double halfWidth = getConfidenceHalfWidth(summary);
+
+				JSONObject statisticData = new JSONObject().put(REPLICATIONS, summary.getN());
+				putFinite(statisticData, MEAN, mean);
+				putFinite(statisticData, STANDARD_DEVIATION, summary.getStandardDeviation());
+				putFinite(statisticData, CONFIDENCE_LOW, mean - halfWidth);
+				putFinite(statisticData, CONFIDENCE_HIGH, mean + halfWidth);
+				statisticsData.put(statistic.getKey(), statisticData);
+			}
+
+			data.put(new JSONObject().put(NAME, result.getKey()).put(STATISTICS, statisticsData));
+		}
+
+		return data;
+	}
+
+	private final double getConfidenceHalfWidth(SummaryStatistics summary) {
+		long n = summary.getN();
+		if (n < 2)
+			return Double.NaN;
+
+		double quantile = new TDistribution(n - 1).inverseCumulativeProbability(1 - (1 - confidenceLevel) / 2);
+		return quantile * summary.getStandardDeviation() / Math.sqrt(n);
+	}
+
+	private static final void putFinite(JSONObject data, String key, double value) {
+		if (Double.isFinite(value))
+			data.put(key, value);
+	}
+}
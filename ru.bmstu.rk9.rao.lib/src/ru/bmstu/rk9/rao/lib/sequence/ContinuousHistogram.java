@@ -27,6 +27,7 @@ public class ContinuousHistogram implements NumericSequence {
 	}
 
 	public ContinuousHistogram(long seed, double offset, List<Pair<? extends Number, ? extends Number>> values) {
+		mersenneTwister = new MersenneTwister(SequenceSeed.derive(seed));
 		double currentOffset = offset;
 		double binOffset = 0;
 		adductionCoefficient = 0;
@@ -62,7 +63,7 @@ public class ContinuousHistogram implements NumericSequence {
 		return value;
 	}
 
-	private final MersenneTwister mersenneTwister = new MersenneTwister(123456789);
+	private final MersenneTwister mersenneTwister;
 	private final List<NumericHistogramBin> bins = new ArrayList<>();
 	private double adductionCoefficient;
 }
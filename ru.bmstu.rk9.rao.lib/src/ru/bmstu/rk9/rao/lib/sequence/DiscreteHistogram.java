@@ -18,6 +18,7 @@ public class DiscreteHistogram<T> implements ArbitraryTypeSequence<T> {
 	}
 
 	public DiscreteHistogram(long seed, List<Pair<T, ? extends Number>> values) {
+		mersenneTwister = new MersenneTwister(SequenceSeed.derive(seed));
 		adductionCoefficient = 0;
 
 		for (Pair<T, ? extends Number> value : values) {
@@ -46,7 +47,7 @@ public class DiscreteHistogram<T> implements ArbitraryTypeSequence<T> {
 		return selectedBin.value;
 	}
 
-	private final MersenneTwister mersenneTwister = new MersenneTwister(123456789);
+	private final MersenneTwister mersenneTwister;
 	private final List<DiscreteHistogramBin> bins = new ArrayList<>();
 	private double adductionCoefficient;
 }
@@ -11,13 +11,13 @@ public class Exponential implements NumericSequence {
 
 	public Exponential(long seed, double rate) {
 		this.rate = rate;
-		this.mersenneTwister = new MersenneTwister(seed);
+		this.mersenneTwister = new MersenneTwister(SequenceSeed.derive(seed));
 		this.parametersType = SequenceParametersType.DEFINED_PARAMETERS;
 	}
 
 	public Exponential(long seed) {
 		this.rate = null;
-		this.mersenneTwister = new MersenneTwister(seed);
+		this.mersenneTwister = new MersenneTwister(SequenceSeed.derive(seed));
 		this.parametersType = SequenceParametersType.UNDEFINED_PARAMETERS;
 	}
 
@@ -14,14 +14,14 @@ public class Normal implements NumericSequence {
 	public Normal(long seed, double mean, double variance) {
 		this.mean = mean;
 		this.variance = variance;
-		this.mersenneTwister = new MersenneTwister(seed);
+		this.mersenneTwister = new MersenneTwister(SequenceSeed.derive(seed));
 		this.parametersType = SequenceParametersType.DEFINED_PARAMETERS;
 	}
 
 	public Normal(long seed) {
 		this.mean = null;
 		this.variance = null;
-		this.mersenneTwister = new MersenneTwister(seed);
+		this.mersenneTwister = new MersenneTwister(SequenceSeed.derive(seed));
 		this.parametersType = SequenceParametersType.UNDEFINED_PARAMETERS;
 	}
 
@@ -0,0 +1,23 @@
+package ru.bmstu.rk9.rao.lib.sequence;
+
+import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator;
+
+public class SequenceSeed {
+	// Seed written in model is mixed with master seed of current simulator
+	// context if one is set, so that every replication gets its own streams,
+	// while sequences with different seeds in model still stay independent
+	public static final long derive(long seed) {
+		Long masterSeed = CurrentSimulator.getContext().getMasterSeed();
+		if (masterSeed == null)
+			return seed;
+
+		return mix(mix(masterSeed) ^ seed);
+	}
+
+	// SplitMix64 finalizer
+	private static final long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+		value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+		return value ^ (value >>> 31);
+	}
+}
@@ -15,7 +15,7 @@ public class Triangular implements NumericSequence {
 		this.a = a;
 		this.b = b;
 		this.c = c;
-		this.mersenneTwister = new MersenneTwister(seed);
+		this.mersenneTwister = new MersenneTwister(SequenceSeed.derive(seed));
 		this.parametersType = SequenceParametersType.DEFINED_PARAMETERS;
 	}
 
@@ -23,7 +23,7 @@ public class Triangular implements NumericSequence {
 		this.a = null;
 		this.b = null;
 		this.c = null;
-		this.mersenneTwister = new MersenneTwister(seed);
+		this.mersenneTwister = new MersenneTwister(SequenceSeed.derive(seed));
 		this.parametersType = SequenceParametersType.UNDEFINED_PARAMETERS;
 	}
 
@@ -13,14 +13,14 @@ public class Uniform implements NumericSequence {
 	public Uniform(long seed, double a, double b) {
 		this.a = a;
 		this.b = b;
-		this.mersenneTwister = new MersenneTwister(seed);
+		this.mersenneTwister = new MersenneTwister(SequenceSeed.derive(seed));
 		this.parametersType = SequenceParametersType.DEFINED_PARAMETERS;
 	}
 
 	public Uniform(long seed) {
 		this.a = null;
 		this.b = null;
-		this.mersenneTwister = new MersenneTwister(seed);
+		this.mersenneTwister = new MersenneTwister(SequenceSeed.derive(seed));
 		this.parametersType = SequenceParametersType.UNDEFINED_PARAMETERS;
 	}
 
@@ -12,51 +12,89 @@ import ru.bmstu.rk9.rao.lib.notification.Notifier;
 import ru.bmstu.rk9.rao.lib.result.AbstractResult;
 
 public class CurrentSimulator {
-	private static ISimulator currentSimulator = null;
+	private static final SimulatorContext globalContext = new SimulatorContext();
+	private static final ThreadLocal<SimulatorContext> threadContext = new ThreadLocal<SimulatorContext>();
+
+	private static SimulatorContext context() {
+		SimulatorContext context = threadContext.get();
+		return context != null ? context : globalContext;
+	}
+
+	public static SimulatorContext getContext() {
+		return context();
+	}
+
+	public static void bindContext(SimulatorContext context) {
+		threadContext.set(context);
+	}
+
+	public static void unbindContext() {
+		threadContext.remove();
+	}
+
+	// Binds context sharing the simulator of the given one, but deploying
+	// model states apart from it
+	public static void bindIsolatedContext(SimulatorContext context, ModelState modelState) {
+		SimulatorContext isolatedContext = new SimulatorContext();
+		isolatedContext.simulator = context.simulator;
+		isolatedContext.simulatorState = context.simulatorState;
+		isolatedContext.isRunning = context.isRunning;
+		isolatedContext.setMasterSeed(context.getMasterSeed());
+		isolatedContext.setParameterValues(context.getParameterValues());
+		isolatedContext.setSerializationObjectsNames(context.getSerializationObjectsNames());
+		isolatedContext.modelState = modelState;
+
+		bindContext(isolatedContext);
+	}
 
 	public static void set(ISimulator simulator) {
 		setCurrentSimulatorState(SimulatorState.DEINITIALIZED);
-		currentSimulator = simulator;
+		context().simulator = simulator;
 	}
 
 	public static synchronized void preinitialize() {
 		preinitialize(new SimulatorPreinitializationInfo());
 	}
 
-	public static synchronized void preinitialize(SimulatorPreinitializationInfo preinitializationInfo) {
-		if (isRunning)
-			throw new RaoLibException("Cannot start new simulation while previous one is still running");
+	public static void preinitialize(SimulatorPreinitializationInfo preinitializationInfo) {
+		SimulatorContext context = context();
+		synchronized (context) {
+			if (context.isRunning)
+				throw new RaoLibException("Cannot start new simulation while previous one is still running");
 
-		if (currentSimulator == null)
-			throw new RaoLibException("Cannot start new simulation: current simulator is not set");
+			if (context.simulator == null)
+				throw new RaoLibException("Cannot start new simulation: current simulator is not set");
 
-		if (currentSimulatorState != SimulatorState.DEINITIALIZED)
-			throw new RaoLibException("Cannot start new simulation: simulator wasn't deinitialized");
+			if (context.simulatorState != SimulatorState.DEINITIALIZED)
+				throw new RaoLibException("Cannot start new simulation: simulator wasn't deinitialized");
 
-		currentSimulator.preinitilize(preinitializationInfo);
-		setCurrentSimulatorState(SimulatorState.PREINITIALIZED);
+			context.simulator.preinitilize(preinitializationInfo);
+			setCurrentSimulatorState(SimulatorState.PREINITIALIZED);
+		}
 	}
 
-	public static synchronized void initialize(SimulatorInitializationInfo initializationInfo) {
-		if (currentSimulatorState != SimulatorState.PREINITIALIZED)
-			throw new RaoLibException("Simulation wasn't correctly preinitialized");
+	public static void initialize(SimulatorInitializationInfo initializationInfo) {
+		SimulatorContext context = context();
+		synchronized (context) {
+			if (context.simulatorState != SimulatorState.PREINITIALIZED)
+				throw new RaoLibException("Simulation wasn't correctly preinitialized");
 
-		currentSimulator.initialize(initializationInfo);
-		setCurrentSimulatorState(SimulatorState.INITIALIZED);
+			context.simulator.initialize(initializationInfo);
+			setCurrentSimulatorState(SimulatorState.INITIALIZED);
+		}
 	}
 
-	private static SimulatorState currentSimulatorState = SimulatorState.DEINITIALIZED;
-
 	public enum SimulatorState {
 		INITIALIZED, DEINITIALIZED, PREINITIALIZED
 	};
 
 	private static final void setCurrentSimulatorState(SimulatorState simulatorState) {
-		if (simulatorState == CurrentSimulator.currentSimulatorState)
+		SimulatorContext context = context();
+		if (simulatorState == context.simulatorState)
 			return;
 
-		CurrentSimulator.currentSimulatorState = simulatorState;
-		simulatorStateNotifier.notifySubscribers(simulatorState);
+		context.simulatorState = simulatorState;
+		context.simulatorStateNotifier.notifySubscribers(simulatorState);
 	}
 
 	public static final void notifyError() {
@@ -64,47 +102,53 @@ public class CurrentSimulator {
 		setCurrentSimulatorState(SimulatorState.DEINITIALIZED);
 	}
 
-	private static final Notifier<SimulatorState> simulatorStateNotifier = new Notifier<SimulatorState>(
-			SimulatorState.class);
-
 	public static final Notifier<SimulatorState> getSimulatorStateNotifier() {
-		return simulatorStateNotifier;
+		return context().simulatorStateNotifier;
 	}
 
 	public static boolean isInitialized() {
-		return currentSimulatorState == SimulatorState.INITIALIZED;
+		return context().simulatorState == SimulatorState.INITIALIZED;
 	}
 
 	public static boolean isRunning() {
-		return isRunning;
+		return context().isRunning;
 	}
 
 	public static Database getDatabase() {
-		return currentSimulator.getDatabase();
+		return context().simulator.getDatabase();
 	}
 
 	public static StaticModelData getStaticModelData() {
-		return currentSimulator.getStaticModelData();
+		return context().simulator.getStaticModelData();
 	}
 
 	public static ModelState getModelState() {
-		return currentSimulator.getModelState();
+		SimulatorContext context = context();
+		return context.modelState != null ? context.modelState : context.simulator.getModelState();
 	}
 
 	public static void setModelState(ModelState modelState) {
-		currentSimulator.setModelState(modelState);
+		SimulatorContext context = context();
+		if (context.modelState != null)
+			context.modelState = modelState;
+		else
+			context.simulator.setModelState(modelState);
 	}
 
 	public static double getTime() {
-		return currentSimulator.getTime();
+		return context().simulator.getTime();
 	}
 
 	public static void pushEvent(Event event) {
-		currentSimulator.pushEvent(event);
+		context().simulator.pushEvent(event);
+	}
+
+	public static boolean cancelEvent(Event event) {
+		return context().simulator.cancelEvent(event);
 	}
 
 	public static Logger getLogger() {
-		return currentSimulator.getLogger();
+		return context().simulator.getLogger();
 	}
 
 	public enum ExecutionState {
@@ -112,25 +156,26 @@ public class CurrentSimulator {
 	};
 
 	public static Notifier<ExecutionState> getExecutionStateNotifier() {
-		return currentSimulator.getExecutionStateNotifier();
+		return context().simulator.getExecutionStateNotifier();
 	}
 
 	private static void notifyChange(ExecutionState category) {
-		currentSimulator.notifyChange(category);
+		context().simulator.notifyChange(category);
 	}
 
 	public static List<AbstractResult<?>> getResults() {
-		return currentSimulator.getResults();
+		return context().simulator.getResults();
 	}
 
-	private static volatile boolean isRunning = false;
+	public static void stopExecution() {
+		SimulatorContext context = context();
+		synchronized (context) {
+			if (context.simulatorState != SimulatorState.INITIALIZED)
+				return;
 
-	public static synchronized void stopExecution() {
-		if (currentSimulatorState != SimulatorState.INITIALIZED)
-			return;
-
-		currentSimulator.abortExecution();
-		notifyChange(ExecutionState.EXECUTION_ABORTED);
+			context.simulator.abortExecution();
+			notifyChange(ExecutionState.EXECUTION_ABORTED);
+		}
 	}
 
 	public enum SimulationStopCode {
@@ -138,17 +183,19 @@ public class CurrentSimulator {
 	}
 
 	public static SimulationStopCode run() {
-		isRunning = true;
+		SimulatorContext context = context();
+		context.isRunning = true;
 
-		return stop(currentSimulator.run());
+		return stop(context.simulator.run());
 	}
 
 	private static void onFinish(Database.SystemEntryType simFinishType) {
+		SimulatorContext context = context();
 		try {
-			currentSimulator.getDatabase().addSystemEntry(simFinishType);
+			context.simulator.getDatabase().addSystemEntry(simFinishType);
 			notifyChange(ExecutionState.EXECUTION_COMPLETED);
 		} finally {
-			isRunning = false;
+			context.isRunning = false;
 		}
 	}
 
@@ -28,6 +28,8 @@ public interface ISimulator {
 
 	public void pushEvent(Event event);
 
+	public boolean cancelEvent(Event event);
+
 	public Notifier<ExecutionState> getExecutionStateNotifier();
 
 	public void notifyChange(ExecutionState category);
@@ -0,0 +1,64 @@
+package ru.bmstu.rk9.rao.lib.simulator;
+
+import java.util.Map;
+
+import ru.bmstu.rk9.rao.lib.exception.RaoLibException;
+
+/*
+ * Model constants are initialized through this class, so that experiments can
+ * run a compiled model with different values of its constants. Values are
+ * taken from the simulator context bound to the thread that initializes model
+ * class and are converted to the type of the value written in model.
+ */
+public class ModelParameters {
+	public static final <T> T get(String qualifiedName, T defaultValue) {
+		Map<String, String> parameterValues = CurrentSimulator.getContext().getParameterValues();
+		if (parameterValues.isEmpty())
+			return defaultValue;
+
+		String value = parameterValues.get(qualifiedName);
+		if (value == null)
+			value = parameterValues.get(qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1));
+		if (value == null)
+			return defaultValue;
+
+		return convert(qualifiedName, value, defaultValue);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static final <T> T convert(String name, String value, T defaultValue) {
+		if (defaultValue == null)
+			throw new RaoLibException("Cannot override constant " + name + " with no value");
+
+		try {
+			if (defaultValue instanceof String)
+				return (T) value;
+			if (defaultValue instanceof Integer)
+				return (T) Integer.valueOf(value.trim());
+			if (defaultValue instanceof Double)
+				return (T) Double.valueOf(value.trim());
+			if (defaultValue instanceof Long)
+				return (T) Long.valueOf(value.trim());
+			if (defaultValue instanceof Float)
+				return (T) Float.valueOf(value.trim());
+			if (defaultValue instanceof Short)
+				return (T) Short.valueOf(value.trim());
+			if (defaultValue instanceof Byte)
+				return (T) Byte.valueOf(value.trim());
+			if (defaultValue instanceof Boolean) {
+				if (!value.trim().equals("true") && !value.trim().equals("false"))
+					throw new IllegalArgumentException(value);
+				return (T) Boolean.valueOf(value.trim());
+			}
+			if (defaultValue instanceof Character && value.length() == 1)
+				return (T) Character.valueOf(value.charAt(0));
+			if (defaultValue instanceof Enum)
+				return (T) Enum.valueOf(((Enum) defaultValue).getDeclaringClass(), value.trim());
+		} catch (IllegalArgumentException e) {
+			throw new RaoLibException("Invalid value \"" + value + "\" of constant " + name);
+		}
+
+		throw new RaoLibException("Constant " + name + " of type " + defaultValue.getClass().getSimpleName()
+				+ " cannot be overridden");
+	}
+}
@@ -5,30 +5,77 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.function.Function;
 
 import ru.bmstu.rk9.rao.lib.exception.RaoLibException;
 import ru.bmstu.rk9.rao.lib.resource.ComparableResource;
 import ru.bmstu.rk9.rao.lib.resource.Resource;
+import ru.bmstu.rk9.rao.lib.resource.ResourceIndex;
 import ru.bmstu.rk9.rao.lib.resource.ResourceManager;
 
+/*
+ * Copies of the state share resource managers until they change them, so a
+ * copy costs as much as the managers it has changed rather than all of them.
+ */
 public class ModelState {
 	public ModelState(Collection<Class<?>> resourceClasses) {
+		managerIndices = new HashMap<>();
 		for (Class<?> resourceClass : resourceClasses) {
 			if (!ComparableResource.class.isAssignableFrom(resourceClass))
 				throw new RaoLibException(
 						"Attempting to initialize model state with invalid resource type " + resourceClass);
 
-			resourceManagers.put(resourceClass, new ResourceManager<>());
+			managerIndices.putIfAbsent(resourceClass, managerIndices.size());
 		}
+
+		this.resourceClasses = new Class<?>[managerIndices.size()];
+		resourceManagers = new ResourceManager<?>[managerIndices.size()];
+		isManagerOwned = new boolean[managerIndices.size()];
+
+		for (Map.Entry<Class<?>, Integer> entry : managerIndices.entrySet()) {
+			this.resourceClasses[entry.getValue()] = entry.getKey();
+			resourceManagers[entry.getValue()] = new ResourceManager<>();
+			isManagerOwned[entry.getValue()] = true;
+		}
+	}
+
+	private ModelState(ModelState other) {
+		managerIndices = other.managerIndices;
+		resourceClasses = other.resourceClasses;
+		resourceManagers = new ResourceManager<?>[other.resourceManagers.length];
+		isManagerOwned = new boolean[other.resourceManagers.length];
+	}
+
+	// Shared by all copies of the state
+	private final Map<Class<?>, Integer> managerIndices;
+	private final Class<?>[] resourceClasses;
+
+	private final ResourceManager<?>[] resourceManagers;
+	// Managers that are not owned are shared with other copies of the state,
+	// and are copied before they are changed
+	private final boolean[] isManagerOwned;
+
+	private ResourceManager<?> getManager(Class<?> resourceClass) {
+		Integer index = managerIndices.get(resourceClass);
+		return index == null ? null : resourceManagers[index];
 	}
 
-	private ModelState() {
+	private ResourceManager<?> getOwnedManager(Class<?> resourceClass) {
+		Integer index = managerIndices.get(resourceClass);
+		if (index == null)
+			return null;
+
+		if (!isManagerOwned[index]) {
+			resourceManagers[index] = resourceManagers[index].shallowCopy();
+			isManagerOwned[index] = true;
+		}
+
+		return resourceManagers[index];
 	}
 
 	@SuppressWarnings("unchecked")
 	public <T extends ComparableResource<T>> void eraseResource(T resource) {
-		ResourceManager<T> resourceManager = (ResourceManager<T>) resourceManagers.get(resource.getClass());
+		ResourceManager<T> resourceManager = (ResourceManager<T>) getOwnedManager(resource.getClass());
 		if (resourceManager == null)
 			throw new RaoLibException("Attempting to erase resource of non-existing type " + resource.getClass());
 
@@ -37,7 +84,7 @@ public class ModelState {
 
 	@SuppressWarnings("unchecked")
 	public <T extends ComparableResource<T>> void addResource(T resource) {
-		ResourceManager<T> resourceManager = (ResourceManager<T>) resourceManagers.get(resource.getClass());
+		ResourceManager<T> resourceManager = (ResourceManager<T>) getOwnedManager(resource.getClass());
 		if (resourceManager == null)
 			throw new RaoLibException("Attempting to add resource of non-existing type " + resource.getClass());
 
@@ -46,22 +93,22 @@ public class ModelState {
 
 	@SuppressWarnings("unchecked")
 	public <T extends ComparableResource<T>> Collection<T> getAll(Class<T> cl) {
-		return (Collection<T>) resourceManagers.get(cl).getAll();
+		return (Collection<T>) getManager(cl).getAll();
 	}
 
 	@SuppressWarnings("unchecked")
 	public <T extends ComparableResource<T>> Collection<T> getAccessible(Class<T> cl) {
-		return (Collection<T>) resourceManagers.get(cl).getAccessible();
+		return (Collection<T>) getManager(cl).getAccessible();
 	}
 
 	@SuppressWarnings("unchecked")
 	public <T extends ComparableResource<T>> T getResource(Class<T> cl, String name) {
-		return (T) resourceManagers.get(cl).getResource(name);
+		return (T) getManager(cl).getResource(name);
 	}
 
 	@SuppressWarnings("unchecked")
 	public <T extends ComparableResource<T>> T getResource(Class<T> cl, int number) {
-		return (T) resourceManagers.get(cl).getResource(number);
+		return (T) getManager(cl).getResource(number);
 	}
 
 	@SuppressWarnings({ "rawtypes", "unchecked" })
@@ -72,20 +119,49 @@ public class ModelState {
 		if (other == this)
 			return true;
 
-		for (Class<?> resourceClass : resourceManagers.keySet()) {
-			ResourceManager<?> resourceManager = resourceManagers.get(resourceClass);
-			ResourceManager<?> resourceManagerOther = other.resourceManagers.get(resourceClass);
+		for (int i = 0; i < resourceManagers.length; i++) {
+			ResourceManager<?> resourceManager = resourceManagers[i];
+			ResourceManager<?> resourceManagerOther = other.managerIndices == managerIndices
+					? other.resourceManagers[i] : other.getManager(resourceClasses[i]);
 
-			if (!resourceManager.checkEqual((ResourceManager) resourceManagerOther))
+			if (resourceManager != resourceManagerOther
+					&& !resourceManager.checkEqual((ResourceManager) resourceManagerOther))
 				return false;
 		}
 
 		return true;
 	}
 
+	// Equal states holding equal resources under the same numbers have equal
+	// hashes. Hashes of resource managers are kept up to date by them, so it
+	// takes time proportional to the number of resource types only
+	public int stateHash() {
+		int hash = 0;
+		for (int i = 0; i < resourceManagers.length; i++)
+			hash += (2 * resourceClasses[i].getName().hashCode() + 1) * resourceManagers[i].stateHash();
+
+		return hash;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends ComparableResource<T>> ResourceIndex<T> getIndex(Class<T> cl, String parameterName,
+			Function<? super T, ?> parameter, boolean isSorted) {
+		return ((ResourceManager<T>) getManager(cl)).getIndex(parameterName, parameter, isSorted);
+	}
+
+	// Both stay the same for a resource type as long as its resources are
+	// not changed, see ResourceManager
+	public long getVersion(Class<?> resourceClass) {
+		return getManager(resourceClass).getVersion();
+	}
+
+	public long getAccessibilityHash(Class<?> resourceClass) {
+		return getManager(resourceClass).getAccessibilityHash();
+	}
+
 	public final List<Resource> getAllResources() {
 		List<Resource> resources = new ArrayList<>();
-		for (ResourceManager<?> resourceManager : resourceManagers.values()) {
+		for (ResourceManager<?> resourceManager : resourceManagers) {
 			resources.addAll(resourceManager.getAll());
 		}
 		return resources;
@@ -97,26 +173,31 @@ public class ModelState {
 
 	@SuppressWarnings("unchecked")
 	public <T extends ComparableResource<T>> T copyOnWrite(T resource) {
-		return (T) ((ResourceManager<T>) resourceManagers.get(resource.getClass())).copyOnWrite((T) resource);
+		return (T) ((ResourceManager<T>) getOwnedManager(resource.getClass())).copyOnWrite((T) resource);
 	}
 
 	public ModelState deepCopy() {
-		return copy(false);
-	}
+		ModelState copy = new ModelState(this);
+		for (int i = 0; i < resourceManagers.length; i++) {
+			copy.resourceManagers[i] = resourceManagers[i].deepCopy();
+			copy.isManagerOwned[i] = true;
+		}
 
-	public ModelState shallowCopy() {
-		return copy(true);
+		return copy;
 	}
 
-	private ModelState copy(boolean isShallow) {
-		ModelState copy = new ModelState();
-		for (Entry<Class<?>, ResourceManager<?>> entry : resourceManagers.entrySet()) {
-			copy.resourceManagers.put(entry.getKey(),
-					isShallow ? entry.getValue().shallowCopy() : entry.getValue().deepCopy());
+	// Managers are shared, and everything owned by them is marked shared, so
+	// that neither this state nor the copy changes them in place
+	public ModelState shallowCopy() {
+		ModelState copy = new ModelState(this);
+		for (int i = 0; i < resourceManagers.length; i++) {
+			if (isManagerOwned[i]) {
+				resourceManagers[i].share();
+				isManagerOwned[i] = false;
+			}
+			copy.resourceManagers[i] = resourceManagers[i];
 		}
 
 		return copy;
 	}
-
-	private Map<Class<?>, ResourceManager<?>> resourceManagers = new HashMap<>();
 }
@@ -2,6 +2,7 @@ package ru.bmstu.rk9.rao.lib.simulator;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import ru.bmstu.rk9.rao.lib.database.Database;
@@ -25,6 +26,7 @@ public class Simulator implements ISimulator {
 		database = new Database(preinitializationInfo.modelStructure);
 		staticModelData = new StaticModelData(preinitializationInfo.modelStructure);
 		logger = new Logger();
+		eventScheduler = preinitializationInfo.eventSchedulerType.createScheduler();
 
 		for (Runnable resourcePreinitializer : preinitializationInfo.resourcePreinitializers)
 			resourcePreinitializer.run();
@@ -33,6 +35,8 @@ public class Simulator implements ISimulator {
 	@Override
 	public void initialize(SimulatorInitializationInfo initializationInfo) {
 		executionStateNotifier = new Notifier<ExecutionState>(ExecutionState.class);
+		executionStateNotifier.setCoalescing(initializationInfo.coalesceNotifications);
+		notificationIntervalNanos = TimeUnit.MILLISECONDS.toNanos(initializationInfo.notificationIntervalMillis);
 		dptManager = new DPTManager(initializationInfo.decisionPoints);
 		processManager = new Process(initializationInfo.processBlocks);
 		resultManager = new ResultManager(initializationInfo.results);
@@ -79,11 +83,19 @@ public class Simulator implements ISimulator {
 		return time;
 	}
 
-	private EventScheduler eventScheduler = new EventScheduler();
+	private EventScheduler eventScheduler;
 
 	@Override
 	public void pushEvent(Event event) {
-		eventScheduler.pushEvent(event);
+		if (event.getTime() >= time)
+			eventScheduler.pushEvent(event);
+		else
+			event.discard();
+	}
+
+	@Override
+	public boolean cancelEvent(Event event) {
+		return eventScheduler.removeEvent(event);
 	}
 
 	private List<Supplier<Boolean>> terminateList = new LinkedList<>();
@@ -118,6 +130,20 @@ public class Simulator implements ISimulator {
 		executionStateNotifier.notifySubscribers(category);
 	}
 
+	private long notificationIntervalNanos;
+	private long lastPublishNanos = 0;
+
+	private void publishPendingNotifications(boolean force) {
+		if (!force && notificationIntervalNanos > 0) {
+			long currentNanos = System.nanoTime();
+			if (currentNanos - lastPublishNanos < notificationIntervalNanos)
+				return;
+			lastPublishNanos = currentNanos;
+		}
+
+		executionStateNotifier.publishPendingNotifications();
+	}
+
 	private volatile boolean executionAborted = false;
 
 	@Override
@@ -127,6 +153,12 @@ public class Simulator implements ISimulator {
 
 	@Override
 	public SimulationStopCode run() {
+		SimulationStopCode stopCode = runLoop();
+		publishPendingNotifications(true);
+		return stopCode;
+	}
+
+	private SimulationStopCode runLoop() {
 		database.addSystemEntry(Database.SystemEntryType.SIM_START);
 
 		notifyChange(ExecutionState.EXECUTION_STARTED);
@@ -154,6 +186,8 @@ public class Simulator implements ISimulator {
 				return SimulationStopCode.NO_MORE_EVENTS;
 
 			Event event = eventScheduler.popEvent();
+			if (event.getTime() != time)
+				publishPendingNotifications(false);
 			time = event.getTime();
 			event.run();
 
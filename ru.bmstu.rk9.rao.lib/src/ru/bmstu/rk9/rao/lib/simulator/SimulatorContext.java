@@ -0,0 +1,67 @@
+package ru.bmstu.rk9.rao.lib.simulator;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import ru.bmstu.rk9.rao.lib.notification.Notifier;
+import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator.SimulatorState;
+
+/*
+ * Everything CurrentSimulator keeps about a simulator. Library and generated
+ * code reach the simulator through CurrentSimulator, which delegates to the
+ * context bound to the calling thread, or to the global one if there is none.
+ * Binding a separate context to each thread lets independent simulators run
+ * concurrently in one JVM.
+ */
+public class SimulatorContext {
+	ISimulator simulator = null;
+	SimulatorState simulatorState = SimulatorState.DEINITIALIZED;
+	volatile boolean isRunning = false;
+
+	final Notifier<SimulatorState> simulatorStateNotifier = new Notifier<SimulatorState>(SimulatorState.class);
+
+	public final ISimulator getSimulator() {
+		return simulator;
+	}
+
+	// Model state deployed in this context instead of the model state of the
+	// simulator, so that threads applying search edges in parallel neither
+	// see nor replace states of each other, see Search
+	ModelState modelState = null;
+
+	// Random sequences created in this context mix their seeds with master
+	// seed, see SequenceSeed. Seeds from model are used as is if it is null
+	private volatile Long masterSeed = null;
+
+	public final Long getMasterSeed() {
+		return masterSeed;
+	}
+
+	public final void setMasterSeed(Long masterSeed) {
+		this.masterSeed = masterSeed;
+	}
+
+	// Values of model constants overriding ones written in model, see
+	// ModelParameters. Keys are either qualified or simple constant names
+	private volatile Map<String, String> parameterValues = Collections.emptyMap();
+
+	public final Map<String, String> getParameterValues() {
+		return parameterValues;
+	}
+
+	public final void setParameterValues(Map<String, String> parameterValues) {
+		this.parameterValues = Collections.unmodifiableMap(parameterValues);
+	}
+
+	// Names of model objects to be traced, see SerializationObjectsNames
+	private volatile List<String> serializationObjectsNames = Collections.emptyList();
+
+	public final List<String> getSerializationObjectsNames() {
+		return serializationObjectsNames;
+	}
+
+	public final void setSerializationObjectsNames(List<String> serializationObjectsNames) {
+		this.serializationObjectsNames = Collections.unmodifiableList(serializationObjectsNames);
+	}
+}
@@ -14,4 +14,9 @@ public class SimulatorInitializationInfo {
 	public final List<AbstractDecisionPoint> decisionPoints = new ArrayList<>();
 	public final List<Block> processBlocks = new ArrayList<>();
 	public final List<AbstractResult<?>> results = new ArrayList<>();
+
+	// Execution state subscribers declared LATEST_ONLY are notified at most once
+	// per model time advance, or once per interval if it is set
+	public boolean coalesceNotifications = false;
+	public long notificationIntervalMillis = 0;
 }
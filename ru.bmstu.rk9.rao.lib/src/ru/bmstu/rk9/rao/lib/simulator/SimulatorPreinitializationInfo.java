@@ -3,6 +3,7 @@ package ru.bmstu.rk9.rao.lib.simulator;
 import java.util.ArrayList;
 import java.util.List;
 
+import ru.bmstu.rk9.rao.lib.event.EventSchedulerType;
 import ru.bmstu.rk9.rao.lib.json.JSONArray;
 import ru.bmstu.rk9.rao.lib.json.JSONObject;
 import ru.bmstu.rk9.rao.lib.modeldata.ModelStructureConstants;
@@ -17,6 +18,7 @@ public class SimulatorPreinitializationInfo {
 	public final JSONObject modelStructure;
 	public final List<Class<?>> resourceClasses = new ArrayList<>();
 	public final List<Runnable> resourcePreinitializers = new ArrayList<>();
+	public EventSchedulerType eventSchedulerType = EventSchedulerType.BINARY_HEAP;
 
 	public static final JSONObject generateModelStructureStub() {
 		return new JSONObject().put(ModelStructureConstants.NAME, "").put(ModelStructureConstants.NUMBER_OF_MODELS, 1)
@@ -1,25 +1,35 @@
 package ru.bmstu.rk9.rao.lib.simulator;
 
+import java.util.EnumSet;
+
 import ru.bmstu.rk9.rao.lib.notification.DefferedSubscriberManager;
 import ru.bmstu.rk9.rao.lib.notification.Subscriber;
+import ru.bmstu.rk9.rao.lib.notification.Subscription.SubscriptionType;
 import ru.bmstu.rk9.rao.lib.simulator.SimulatorSubscriberManager.SimulatorSubscriberInfo;
 
 public class SimulatorSubscriberManager extends DefferedSubscriberManager<SimulatorSubscriberInfo> {
 	public static class SimulatorSubscriberInfo {
 		public SimulatorSubscriberInfo(Subscriber subscriber, CurrentSimulator.ExecutionState notificationCategory) {
+			this(subscriber, notificationCategory, EnumSet.noneOf(SubscriptionType.class));
+		}
+
+		public SimulatorSubscriberInfo(Subscriber subscriber, CurrentSimulator.ExecutionState notificationCategory,
+				EnumSet<SubscriptionType> subscriptionFlags) {
 			this.subscriber = subscriber;
 			this.notificationCategory = notificationCategory;
+			this.subscriptionFlags = subscriptionFlags;
 		}
 
 		final Subscriber subscriber;
 		final CurrentSimulator.ExecutionState notificationCategory;
+		final EnumSet<SubscriptionType> subscriptionFlags;
 	}
 
 	@Override
 	protected void registerExecutionSubscribers() {
 		for (SimulatorSubscriberInfo subscriberInfo : subscribersInfo)
 			CurrentSimulator.getExecutionStateNotifier().addSubscriber(subscriberInfo.subscriber,
-					subscriberInfo.notificationCategory);
+					subscriberInfo.notificationCategory, subscriberInfo.subscriptionFlags);
 	}
 
 	@Override
@@ -0,0 +1,211 @@
+package ru.bmstu.rk9.rao.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import ru.bmstu.rk9.rao.lib.dpt.Activity;
+import ru.bmstu.rk9.rao.lib.pattern.Rule;
+import ru.bmstu.rk9.rao.lib.resource.ComparableResource;
+import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator;
+import ru.bmstu.rk9.rao.lib.simulator.ModelState;
+import ru.bmstu.rk9.rao.lib.simulator.SimulatorContext;
+
+public class ActivityTest {
+	private int checks = 0;
+
+	private Machine machine;
+	private Tool tool;
+
+	@Test
+	public void testAccessibilityChange() {
+		bindModelState();
+		try {
+			tool.take();
+
+			Activity activity = new Activity(() -> new Work(new Class<?>[] { Machine.class, Tool.class }));
+			assertFalse(activity.execute());
+			assertFalse(activity.execute());
+			assertEquals(1, checks);
+
+			// Tool is put back by someone else
+			tool.put();
+			assertTrue(activity.execute());
+			assertEquals(2, checks);
+		} finally {
+			CurrentSimulator.unbindContext();
+		}
+	}
+
+	@Test
+	public void testParameterChange() {
+		bindModelState();
+		try {
+			machine.setValue(1);
+
+			Activity activity = new Activity(() -> new Work(new Class<?>[] { Machine.class, Tool.class }));
+			assertFalse(activity.execute());
+			assertFalse(activity.execute());
+			assertEquals(1, checks);
+
+			machine.setValue(0);
+			assertTrue(activity.execute());
+			assertEquals(2, checks);
+		} finally {
+			CurrentSimulator.unbindContext();
+		}
+	}
+
+	@Test
+	public void testUnknownDependencies() {
+		bindModelState();
+		try {
+			Activity activity = new Activity(() -> new Work(null, 1));
+			assertFalse(activity.execute());
+			assertFalse(activity.execute());
+			assertEquals(2, checks);
+
+			// List parameter changed in place bypasses setters, so only
+			// patterns with unknown dependencies notice it
+			machine.jobs.add(1);
+			assertTrue(activity.execute());
+			assertEquals(3, checks);
+		} finally {
+			CurrentSimulator.unbindContext();
+		}
+	}
+
+	private void bindModelState() {
+		ModelState modelState = new ModelState(Arrays.asList(Machine.class, Tool.class));
+		CurrentSimulator.bindIsolatedContext(new SimulatorContext(), modelState);
+
+		machine = new Machine();
+		modelState.addResource(machine);
+		tool = new Tool();
+		modelState.addResource(tool);
+	}
+
+	// Puts free machine with enough jobs to work with accessible tool
+	private class Work extends Rule {
+		Work(Class<?>[] readResourceTypes) {
+			this(readResourceTypes, 0);
+		}
+
+		Work(Class<?>[] readResourceTypes, int requiredJobs) {
+			this.readResourceTypes = readResourceTypes;
+			this.requiredJobs = requiredJobs;
+		}
+
+		private final Class<?>[] readResourceTypes;
+		private final int requiredJobs;
+
+		private Machine machine;
+		private Tool tool;
+
+		@Override
+		public boolean selectRelevantResources() {
+			checks++;
+
+			machine = CurrentSimulator.getModelState().getAccessible(Machine.class).stream()
+					.filter(m -> m.value == 0 && m.jobs.size() >= requiredJobs).findFirst().orElse(null);
+			if (machine == null) {
+				finish();
+				return false;
+			}
+			machine.take();
+
+			tool = CurrentSimulator.getModelState().getAccessible(Tool.class).stream().findFirst().orElse(null);
+			if (tool == null) {
+				finish();
+				return false;
+			}
+			tool.take();
+
+			return true;
+		}
+
+		@Override
+		public Class<?>[] getReadResourceTypes() {
+			return readResourceTypes;
+		}
+
+		@Override
+		public void finish() {
+			if (machine != null)
+				machine.put();
+			if (tool != null)
+				tool.put();
+		}
+
+		@Override
+		public String getTypeName() {
+			return "Work";
+		}
+	}
+
+	private static class Machine extends ValueResource<Machine> {
+		List<Integer> jobs = new ArrayList<>();
+
+		@Override
+		protected Machine create() {
+			Machine machine = new Machine();
+			machine.jobs = new ArrayList<>(jobs);
+			return machine;
+		}
+	}
+
+	private static class Tool extends ValueResource<Tool> {
+		@Override
+		protected Tool create() {
+			return new Tool();
+		}
+	}
+
+	private static abstract class ValueResource<T extends ValueResource<T>> extends ComparableResource<T> {
+		int value = 0;
+
+		void setValue(int value) {
+			this.value = value;
+			stateChanged();
+		}
+
+		protected abstract T create();
+
+		@Override
+		public boolean checkEqual(T other) {
+			return value == other.value;
+		}
+
+		@Override
+		public int stateHash() {
+			return value;
+		}
+
+		@Override
+		public T deepCopy() {
+			T copy = create();
+			copy.value = value;
+			copy.setNumber(number);
+			return copy;
+		}
+
+		@Override
+		public String getTypeName() {
+			return getClass().getSimpleName();
+		}
+
+		@Override
+		public void erase() {
+		}
+
+		@Override
+		public ByteBuffer serialize() {
+			return null;
+		}
+	}
+}
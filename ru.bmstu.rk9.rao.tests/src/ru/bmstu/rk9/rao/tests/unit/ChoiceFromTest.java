@@ -0,0 +1,91 @@
+package ru.bmstu.rk9.rao.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Test;
+
+import ru.bmstu.rk9.rao.lib.pattern.CombinationalChoiceFrom;
+import ru.bmstu.rk9.rao.lib.pattern.SimpleChoiceFrom;
+
+public class ChoiceFromTest {
+	private final List<Integer> numbers = Arrays.asList(5, 3, 8, 1, 9, 4);
+
+	@Test
+	public void testSimpleChoice() {
+		assertEquals(1, (int) new SimpleChoiceFrom<Void, Integer, Void>((r, n, p) -> n % 2 == 1, ascending())
+				.find(null, numbers, null));
+		assertEquals(5, (int) new SimpleChoiceFrom<Void, Integer, Void>((r, n, p) -> n % 2 == 1, null)
+				.find(null, numbers, null));
+		assertNull(new SimpleChoiceFrom<Void, Integer, Void>((r, n, p) -> n > 10, ascending())
+				.find(null, numbers, null));
+	}
+
+	@Test
+	public void testCombinationalChoice() {
+		int[] set = new int[3];
+		SimpleChoiceFrom.ChoiceMethod<int[], int[], Void> closestSum;
+		closestSum = new SimpleChoiceFrom.ChoiceMethod<int[], int[], Void>() {
+			@Override
+			public int compare(int[] a, int[] b) {
+				return Integer.compare(Math.abs(a[0] + a[1] - a[2]), Math.abs(b[0] + b[1] - b[2]));
+			}
+		};
+		CombinationalChoiceFrom<int[], Void> choice = combinationalChoice(set, closestSum);
+
+		// Combination with sum of first two elements closest to the third one
+		assertTrue(choice.find(null));
+		assertEquals(0, set[0] + set[1] - set[2]);
+		assertEquals(Arrays.asList(5, 3, 8), Arrays.asList(set[0], set[1], set[2]));
+
+		set = new int[3];
+		assertTrue(combinationalChoice(set, null).find(null));
+		assertEquals(Arrays.asList(5, 5, 5), Arrays.asList(set[0], set[1], set[2]));
+	}
+
+	private CombinationalChoiceFrom<int[], Void> combinationalChoice(int[] set,
+			SimpleChoiceFrom.ChoiceMethod<int[], int[], Void> comparator) {
+		CombinationalChoiceFrom<int[], Void> choice = new CombinationalChoiceFrom<>(set, comparator,
+				new CombinationalChoiceFrom.RelevantResourcesManager<int[]>() {
+					@Override
+					public int[] create(int[] set) {
+						return set.clone();
+					}
+
+					@Override
+					public void apply(int[] origin, int[] set) {
+						System.arraycopy(set, 0, origin, 0, set.length);
+					}
+				});
+
+		for (int i = 0; i < set.length; i++) {
+			int index = i;
+			choice.addFinder(new CombinationalChoiceFrom.Finder<int[], Integer, Void>(this::getNumbers,
+					new SimpleChoiceFrom<>((s, n, p) -> true, null),
+					new CombinationalChoiceFrom.Setter<int[], Integer>() {
+						@Override
+						public void set(int[] set, Integer number) {
+							set[index] = number;
+						}
+					}));
+		}
+
+		return choice;
+	}
+
+	private Collection<Integer> getNumbers() {
+		return numbers;
+	}
+
+	private static SimpleChoiceFrom.ChoiceMethod<Void, Integer, Void> ascending() {
+		return new SimpleChoiceFrom.ChoiceMethod<Void, Integer, Void>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Integer.compare(a, b);
+			}
+		};
+	}
+}
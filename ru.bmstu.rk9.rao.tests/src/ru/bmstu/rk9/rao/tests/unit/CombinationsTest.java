@@ -0,0 +1,53 @@
+package ru.bmstu.rk9.rao.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import ru.bmstu.rk9.rao.lib.pattern.Combinations;
+
+public class CombinationsTest {
+	private int checks = 0;
+
+	@Test
+	public void testOrder() {
+		List<String> combinations = new ArrayList<>();
+		for (String combination : combinations(Arrays.asList(1, 2), Arrays.asList("a", "b", "c"), Arrays.asList(true)))
+			combinations.add(combination);
+
+		assertEquals(Arrays.asList("1atrue", "1btrue", "1ctrue", "2atrue", "2btrue", "2ctrue"), combinations);
+		assertFalse(combinations(Arrays.asList(1, 2), Collections.emptyList()).iterator().hasNext());
+		assertFalse(combinations(Collections.emptyList(), Arrays.asList(1, 2)).iterator().hasNext());
+	}
+
+	@Test
+	public void testLaziness() {
+		List<Integer> numbers = new ArrayList<>();
+		for (int i = 0; i < 1000; i++)
+			numbers.add(i);
+
+		Iterable<Integer> checkedNumbers = () -> numbers.stream().filter(n -> {
+			checks++;
+			return n % 2 == 0;
+		}).iterator();
+
+		Iterator<String> iterator = combinations(checkedNumbers, checkedNumbers, checkedNumbers).iterator();
+		for (int i = 0; i < 10; i++)
+			iterator.next();
+
+		// Every element but those of the first collection is checked once
+		assertTrue(checks < 2 * numbers.size() + 10);
+	}
+
+	private static Iterable<String> combinations(Iterable<?>... sources) {
+		return new Combinations<>(Arrays.asList(sources),
+				elements -> Arrays.stream(elements).map(String::valueOf).collect(Collectors.joining()));
+	}
+}
@@ -0,0 +1,86 @@
+package ru.bmstu.rk9.rao.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import ru.bmstu.rk9.rao.lib.database.SerializationObjectsNames;
+import ru.bmstu.rk9.rao.lib.process.Connection;
+import ru.bmstu.rk9.rao.lib.process.Generate;
+import ru.bmstu.rk9.rao.lib.process.Hold;
+import ru.bmstu.rk9.rao.lib.process.Terminate;
+import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator;
+import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator.SimulationStopCode;
+import ru.bmstu.rk9.rao.lib.simulator.SimulatorContext;
+import ru.bmstu.rk9.rao.lib.simulator.SimulatorInitializationInfo;
+
+public class ConcurrentSimulatorsTest {
+	@Test
+	public void test() throws InterruptedException, ExecutionException {
+		final int numberOfSimulators = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfSimulators);
+
+		List<Future<Double>> finishTimes = new ArrayList<>();
+		for (int i = 0; i < numberOfSimulators; i++) {
+			final double interval = i + 1;
+			finishTimes.add(executor.submit(() -> runSimulation(interval)));
+		}
+
+		for (int i = 0; i < numberOfSimulators; i++) {
+			double interval = i + 1;
+			double nextGenerateTime = (Math.floor(10000 / interval) + 1) * interval;
+			double nextHoldTime = (Math.floor((10000 - interval / 2) / interval) + 1) * interval + interval / 2;
+			assertEquals(Math.min(nextGenerateTime, nextHoldTime), finishTimes.get(i).get(), 1e-9);
+		}
+
+		executor.shutdown();
+	}
+
+	@Test
+	public void testSerializationObjectsNames() {
+		List<String> globalNames = CurrentSimulator.getContext().getSerializationObjectsNames();
+
+		CurrentSimulator.bindContext(new SimulatorContext());
+		try {
+			SerializationObjectsNames.set(Arrays.asList("model.resource"));
+			assertEquals(Arrays.asList("model.resource"), CurrentSimulator.getContext().getSerializationObjectsNames());
+		} finally {
+			CurrentSimulator.unbindContext();
+		}
+
+		assertSame(globalNames, CurrentSimulator.getContext().getSerializationObjectsNames());
+	}
+
+	private double runSimulation(double interval) {
+		CurrentSimulator.bindContext(new SimulatorContext());
+		try {
+			ProcessTestSuite.initEmptySimulation();
+
+			SimulatorInitializationInfo initializationInfo = new SimulatorInitializationInfo();
+			initializationInfo.terminateConditions.add(() -> CurrentSimulator.getTime() > 10000);
+
+			Generate generate = new Generate(() -> interval);
+			Hold hold = new Hold(() -> interval / 2);
+			Terminate terminate = new Terminate();
+			Connection.linkDocks(generate.getOutputDock(), hold.getInputDock());
+			Connection.linkDocks(hold.getOutputDock(), terminate.getInputDock());
+			initializationInfo.processBlocks.add(generate);
+			initializationInfo.processBlocks.add(hold);
+			initializationInfo.processBlocks.add(terminate);
+
+			CurrentSimulator.initialize(initializationInfo);
+			assertEquals(SimulationStopCode.TERMINATE_CONDITION, CurrentSimulator.run());
+			return CurrentSimulator.getTime();
+		} finally {
+			CurrentSimulator.unbindContext();
+		}
+	}
+}
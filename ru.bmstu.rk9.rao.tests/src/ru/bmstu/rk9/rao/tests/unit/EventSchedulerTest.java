@@ -0,0 +1,258 @@
+package ru.bmstu.rk9.rao.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ru.bmstu.rk9.rao.lib.event.Event;
+import ru.bmstu.rk9.rao.lib.event.EventPool;
+import ru.bmstu.rk9.rao.lib.event.EventScheduler;
+import ru.bmstu.rk9.rao.lib.event.EventSchedulerType;
+import ru.bmstu.rk9.rao.lib.exception.RaoLibException;
+import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator;
+import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator.SimulationStopCode;
+import ru.bmstu.rk9.rao.lib.simulator.SimulatorInitializationInfo;
+
+public class EventSchedulerTest {
+	private static class TestEvent extends Event {
+		TestEvent(double time) {
+			this.time = time;
+		}
+
+		TestEvent(double time, int priority) {
+			this.time = time;
+			this.priority = priority;
+		}
+
+		void delay(double delay) {
+			this.time += delay;
+		}
+
+		@Override
+		public String getName() {
+			return "TestEvent";
+		}
+
+		@Override
+		protected void execute() {
+		}
+	}
+
+	@Test
+	public void testOrdering() {
+		for (EventSchedulerType type : EventSchedulerType.values()) {
+			EventScheduler scheduler = type.createScheduler();
+			Random random = new Random(42);
+
+			double currentTime = 0;
+			for (int i = 0; i < 1000; i++)
+				scheduler.pushEvent(new TestEvent(currentTime - Math.log(random.nextDouble()) * 10));
+
+			for (int i = 0; i < 100000; i++) {
+				assertTrue(type.toString(), scheduler.haveEvents());
+				Event event = scheduler.popEvent();
+				assertTrue(type.toString(), event.getTime() >= currentTime);
+				currentTime = event.getTime();
+
+				int eventsToPush = random.nextInt(3);
+				for (int j = 0; j < eventsToPush; j++)
+					scheduler.pushEvent(new TestEvent(currentTime - Math.log(random.nextDouble()) * 10));
+			}
+
+			while (scheduler.haveEvents()) {
+				Event event = scheduler.popEvent();
+				assertTrue(type.toString(), event.getTime() >= currentTime);
+				currentTime = event.getTime();
+			}
+
+			assertNull(type.toString(), scheduler.popEvent());
+		}
+	}
+
+	@Test
+	public void testSimultaneousEvents() {
+		for (EventSchedulerType type : EventSchedulerType.values()) {
+			EventScheduler scheduler = type.createScheduler();
+
+			TestEvent first = new TestEvent(5);
+			TestEvent second = new TestEvent(5);
+			TestEvent urgent = new TestEvent(5, 1);
+			TestEvent third = new TestEvent(5);
+			TestEvent earlier = new TestEvent(1);
+
+			scheduler.pushEvent(first);
+			scheduler.pushEvent(second);
+			scheduler.pushEvent(urgent);
+			scheduler.pushEvent(third);
+			scheduler.pushEvent(earlier);
+
+			assertSame(type.toString(), earlier, scheduler.popEvent());
+			assertSame(type.toString(), urgent, scheduler.popEvent());
+			assertSame(type.toString(), first, scheduler.popEvent());
+			assertSame(type.toString(), second, scheduler.popEvent());
+			assertSame(type.toString(), third, scheduler.popEvent());
+		}
+	}
+
+	@Test
+	public void testPriorityOfPlannedEvent() {
+		for (EventSchedulerType type : EventSchedulerType.values()) {
+			EventScheduler scheduler = type.createScheduler();
+
+			TestEvent first = new TestEvent(5);
+			TestEvent second = new TestEvent(5);
+			scheduler.pushEvent(first);
+			scheduler.pushEvent(second);
+
+			try {
+				second.setPriority(1);
+				fail(type.toString());
+			} catch (RaoLibException e) {
+			}
+			assertEquals(type.toString(), 0, second.getPriority());
+
+			// Priority can be changed once the event is taken out
+			assertTrue(type.toString(), scheduler.removeEvent(second));
+			second.setPriority(1);
+			scheduler.pushEvent(second);
+
+			assertSame(type.toString(), second, scheduler.popEvent());
+			assertSame(type.toString(), first, scheduler.popEvent());
+		}
+	}
+
+	@Test
+	public void testReschedule() {
+		ProcessTestSuite.initEmptySimulation();
+		CurrentSimulator.initialize(new SimulatorInitializationInfo());
+
+		TestEvent other = new TestEvent(20);
+		List<String> failures = new ArrayList<>();
+		TestEvent current = new TestEvent(10) {
+			@Override
+			protected void execute() {
+				assertRejected(() -> other.reschedule(5), "rescheduled to the past", failures);
+				assertRejected(() -> reschedule(15), "rescheduled while happening", failures);
+				other.reschedule(10);
+			}
+		};
+		TestEvent cancelled = new TestEvent(30);
+
+		CurrentSimulator.pushEvent(current);
+		CurrentSimulator.pushEvent(other);
+		CurrentSimulator.pushEvent(cancelled);
+		assertTrue(cancelled.cancel());
+		assertRejected(() -> cancelled.reschedule(40), "rescheduled after cancel", failures);
+
+		assertEquals(SimulationStopCode.NO_MORE_EVENTS, CurrentSimulator.run());
+		assertTrue(failures.toString(), failures.isEmpty());
+		assertEquals(10, CurrentSimulator.getTime(), 0);
+		assertEquals(10, other.getTime(), 0);
+		assertFalse(other.isPlanned());
+	}
+
+	@Test
+	public void testPastPooledEvent() {
+		ProcessTestSuite.initEmptySimulation();
+		CurrentSimulator.initialize(new SimulatorInitializationInfo());
+
+		EventPool<TestEvent> pool = new EventPool<>(() -> new TestEvent(0));
+		List<TestEvent> reused = new ArrayList<>();
+		CurrentSimulator.pushEvent(new TestEvent(10) {
+			@Override
+			protected void execute() {
+				TestEvent past = pool.obtain(5);
+				CurrentSimulator.pushEvent(past);
+				if (pool.obtain(15) == past)
+					reused.add(past);
+			}
+		});
+
+		assertEquals(SimulationStopCode.NO_MORE_EVENTS, CurrentSimulator.run());
+		assertEquals(1, reused.size());
+	}
+
+	private static void assertRejected(Runnable action, String description, List<String> failures) {
+		try {
+			action.run();
+			failures.add(description);
+		} catch (RaoLibException e) {
+		}
+	}
+
+	@Test
+	public void testRemoval() {
+		for (EventSchedulerType type : EventSchedulerType.values()) {
+			EventScheduler scheduler = type.createScheduler();
+			Random random = new Random(7);
+
+			List<Event> events = new ArrayList<>();
+			for (int i = 0; i < 10000; i++) {
+				Event event = new TestEvent(random.nextDouble() * 1000);
+				events.add(event);
+				scheduler.pushEvent(event);
+				assertTrue(type.toString(), event.isPlanned());
+			}
+
+			int removed = 0;
+			for (int i = 0; i < events.size(); i += 3) {
+				assertTrue(type.toString(), scheduler.removeEvent(events.get(i)));
+				assertFalse(type.toString(), events.get(i).isPlanned());
+				assertFalse(type.toString(), scheduler.removeEvent(events.get(i)));
+				removed++;
+			}
+
+			double currentTime = 0;
+			int popped = 0;
+			while (scheduler.haveEvents()) {
+				Event event = scheduler.popEvent();
+				assertFalse(type.toString(), event.isPlanned());
+				assertTrue(type.toString(), events.indexOf(event) % 3 != 0);
+				assertTrue(type.toString(), event.getTime() >= currentTime);
+				currentTime = event.getTime();
+				popped++;
+			}
+
+			assertEquals(type.toString(), events.size() - removed, popped);
+		}
+	}
+
+	@Test
+	public void testSteadyStateAllocation() {
+		if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean))
+			return;
+
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+		for (EventSchedulerType type : EventSchedulerType.values()) {
+			EventScheduler scheduler = type.createScheduler();
+			Random random = new Random(11);
+
+			for (int i = 0; i < 1000; i++)
+				scheduler.pushEvent(new TestEvent(random.nextDouble() * 100));
+
+			for (int i = 0; i < 100000; i++)
+				holdStep(scheduler, random);
+
+			long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+			for (int i = 0; i < 100000; i++)
+				holdStep(scheduler, random);
+			long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+			assertTrue(type.toString() + " allocated " + allocated + " bytes", allocated < 1024);
+		}
+	}
+
+	private void holdStep(EventScheduler scheduler, Random random) {
+		TestEvent event = (TestEvent) scheduler.popEvent();
+		event.delay(random.nextDouble() * 100);
+		scheduler.pushEvent(event);
+	}
+}
@@ -0,0 +1,202 @@
+package ru.bmstu.rk9.rao.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import ru.bmstu.rk9.rao.lib.dpt.Activity;
+import ru.bmstu.rk9.rao.lib.pattern.Rule;
+import ru.bmstu.rk9.rao.lib.resource.ComparableResource;
+import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator;
+import ru.bmstu.rk9.rao.lib.simulator.ModelState;
+import ru.bmstu.rk9.rao.lib.simulator.SimulatorContext;
+
+public class MatchMemoryTest {
+	private int slotEvaluations = 0;
+	private int itemEvaluations = 0;
+
+	@Test
+	public void testRememberedStages() {
+		ModelState modelState = new ModelState(Arrays.asList(Slot.class, Item.class));
+		CurrentSimulator.bindIsolatedContext(new SimulatorContext(), modelState);
+		try {
+			modelState.addResource(new Slot());
+			Item item = new Item();
+			modelState.addResource(item);
+
+			Activity activity = new Activity(Place::new);
+			assertFalse(activity.execute());
+			assertEvaluations(1, 1);
+
+			// Nothing has changed, so the match fails without evaluating
+			// anything
+			assertFalse(activity.execute());
+			assertFalse(activity.execute());
+			assertEvaluations(1, 1);
+
+			// Change of the first stage makes the second one evaluated again
+			modelState.addResource(new Slot());
+			assertFalse(activity.execute());
+			assertEvaluations(2, 2);
+
+			item.setValue(1);
+			assertTrue(activity.execute());
+			assertEvaluations(2, 3);
+
+			// Slot has been taken up
+			assertTrue(activity.execute());
+			assertEvaluations(3, 4);
+			assertFalse(activity.execute());
+			assertEvaluations(4, 4);
+		} finally {
+			CurrentSimulator.unbindContext();
+		}
+	}
+
+	@Test
+	public void testAccessibilityChange() {
+		ModelState modelState = new ModelState(Arrays.asList(Slot.class, Item.class));
+		CurrentSimulator.bindIsolatedContext(new SimulatorContext(), modelState);
+		try {
+			modelState.addResource(new Slot());
+			Item item = new Item();
+			item.setValue(1);
+			modelState.addResource(item);
+
+			// Item is taken by someone else
+			item.take();
+			Activity activity = new Activity(Place::new);
+			assertFalse(activity.execute());
+			assertFalse(activity.execute());
+			assertEvaluations(1, 1);
+
+			// Only the stage reading items is evaluated again
+			item.put();
+			assertTrue(activity.execute());
+			assertEvaluations(1, 2);
+		} finally {
+			CurrentSimulator.unbindContext();
+		}
+	}
+
+	private void assertEvaluations(int expectedSlotEvaluations, int expectedItemEvaluations) {
+		assertEquals(expectedSlotEvaluations, slotEvaluations);
+		assertEquals(expectedItemEvaluations, itemEvaluations);
+	}
+
+	// Places ready item into free slot
+	private class Place extends Rule {
+		private Slot slot;
+		private Item item;
+
+		@Override
+		public boolean selectRelevantResources() {
+			slot = resolveRelevant(0, () -> {
+				slotEvaluations++;
+				return CurrentSimulator.getModelState().getAccessible(Slot.class).stream().filter(s -> s.value == 0)
+						.findFirst().orElse(null);
+			});
+			if (slot == null) {
+				finish();
+				return false;
+			}
+			slot.take();
+
+			item = resolveRelevant(1, () -> {
+				itemEvaluations++;
+				return CurrentSimulator.getModelState().getAccessible(Item.class).stream().filter(i -> i.value > 0)
+						.findFirst().orElse(null);
+			});
+			if (item == null) {
+				finish();
+				return false;
+			}
+			item.take();
+
+			return true;
+		}
+
+		@Override
+		public Class<?>[][] getRelevantReadResourceTypes() {
+			return new Class<?>[][] { { Slot.class }, { Item.class } };
+		}
+
+		@Override
+		protected void execute() {
+			slot.setValue(1);
+		}
+
+		@Override
+		public void finish() {
+			if (slot != null)
+				slot.put();
+			if (item != null)
+				item.put();
+		}
+
+		@Override
+		public String getTypeName() {
+			return "Place";
+		}
+	}
+
+	private static class Slot extends ValueResource<Slot> {
+		@Override
+		protected Slot create() {
+			return new Slot();
+		}
+	}
+
+	private static class Item extends ValueResource<Item> {
+		@Override
+		protected Item create() {
+			return new Item();
+		}
+	}
+
+	private static abstract class ValueResource<T extends ValueResource<T>> extends ComparableResource<T> {
+		int value = 0;
+
+		void setValue(int value) {
+			this.value = value;
+			stateChanged();
+		}
+
+		protected abstract T create();
+
+		@Override
+		public boolean checkEqual(T other) {
+			return value == other.value;
+		}
+
+		@Override
+		public int stateHash() {
+			return value;
+		}
+
+		@Override
+		public T deepCopy() {
+			T copy = create();
+			copy.value = value;
+			copy.setNumber(number);
+			return copy;
+		}
+
+		@Override
+		public String getTypeName() {
+			return getClass().getSimpleName();
+		}
+
+		@Override
+		public void erase() {
+		}
+
+		@Override
+		public ByteBuffer serialize() {
+			return null;
+		}
+	}
+}
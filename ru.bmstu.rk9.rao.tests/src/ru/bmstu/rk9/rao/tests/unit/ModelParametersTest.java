@@ -0,0 +1,50 @@
+package ru.bmstu.rk9.rao.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import ru.bmstu.rk9.rao.lib.exception.RaoLibException;
+import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator;
+import ru.bmstu.rk9.rao.lib.simulator.ModelParameters;
+import ru.bmstu.rk9.rao.lib.simulator.SimulatorContext;
+
+public class ModelParametersTest {
+	private enum Discipline {
+		FIFO, LIFO
+	}
+
+	@Test
+	public void testOverride() {
+		assertEquals(Integer.valueOf(3), ModelParameters.get("project.model.capacity", 3));
+
+		Map<String, String> parameterValues = new HashMap<>();
+		parameterValues.put("project.model.capacity", "5");
+		parameterValues.put("delay", "2.5");
+		parameterValues.put("discipline", "LIFO");
+		parameterValues.put("enabled", "yes");
+
+		SimulatorContext context = new SimulatorContext();
+		context.setParameterValues(parameterValues);
+		CurrentSimulator.bindContext(context);
+
+		try {
+			assertEquals(Integer.valueOf(5), ModelParameters.get("project.model.capacity", 3));
+			assertEquals(Integer.valueOf(3), ModelParameters.get("project.other.capacity", 3));
+			assertEquals(Double.valueOf(2.5), ModelParameters.get("project.model.delay", 1.0));
+			assertEquals(Discipline.LIFO, ModelParameters.get("project.model.discipline", Discipline.FIFO));
+			assertEquals("name", ModelParameters.get("project.model.name", "name"));
+
+			try {
+				ModelParameters.get("project.model.enabled", false);
+				fail("Invalid boolean value accepted");
+			} catch (RaoLibException e) {
+			}
+		} finally {
+			CurrentSimulator.unbindContext();
+		}
+	}
+}
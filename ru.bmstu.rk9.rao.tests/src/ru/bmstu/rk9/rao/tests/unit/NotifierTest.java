@@ -0,0 +1,61 @@
+package ru.bmstu.rk9.rao.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.EnumSet;
+
+import org.junit.Test;
+
+import ru.bmstu.rk9.rao.lib.notification.Notifier;
+import ru.bmstu.rk9.rao.lib.notification.Subscriber;
+import ru.bmstu.rk9.rao.lib.notification.Subscription.SubscriptionType;
+
+public class NotifierTest {
+	private enum Category {
+		FIRST, SECOND
+	}
+
+	private static class CountingSubscriber implements Subscriber {
+		int count = 0;
+
+		@Override
+		public void fireChange() {
+			count++;
+		}
+	}
+
+	@Test
+	public void testCoalescing() {
+		Notifier<Category> notifier = new Notifier<Category>(Category.class);
+		CountingSubscriber everyStep = new CountingSubscriber();
+		CountingSubscriber latestOnly = new CountingSubscriber();
+		CountingSubscriber oneShot = new CountingSubscriber();
+
+		notifier.addSubscriber(everyStep, Category.FIRST);
+		notifier.addSubscriber(latestOnly, Category.FIRST, EnumSet.of(SubscriptionType.LATEST_ONLY));
+		notifier.addSubscriber(oneShot, Category.FIRST, EnumSet.of(SubscriptionType.ONE_SHOT));
+
+		notifier.notifySubscribers(Category.FIRST);
+		assertEquals(1, everyStep.count);
+		assertEquals(1, latestOnly.count);
+		assertEquals(1, oneShot.count);
+
+		notifier.setCoalescing(true);
+		for (int i = 0; i < 10; i++)
+			notifier.notifySubscribers(Category.FIRST);
+		notifier.notifySubscribers(Category.SECOND);
+		assertEquals(11, everyStep.count);
+		assertEquals(1, latestOnly.count);
+		assertEquals(1, oneShot.count);
+
+		notifier.publishPendingNotifications();
+		assertEquals(2, latestOnly.count);
+
+		notifier.publishPendingNotifications();
+		assertEquals(2, latestOnly.count);
+
+		notifier.notifySubscribers(Category.FIRST);
+		notifier.setCoalescing(false);
+		assertEquals(3, latestOnly.count);
+	}
+}
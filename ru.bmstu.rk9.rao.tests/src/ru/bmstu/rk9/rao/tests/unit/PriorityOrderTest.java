@@ -0,0 +1,93 @@
+package ru.bmstu.rk9.rao.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import ru.bmstu.rk9.rao.lib.dpt.PriorityOrder;
+
+public class PriorityOrderTest {
+	private final Map<String, Supplier<Double>> priorities = new HashMap<>();
+	private int evaluations = 0;
+
+	@Test
+	public void testMissingPriorities() {
+		PriorityOrder<String> order = order("a", "b", "c", "d");
+		priorities.put("a", null);
+		priorities.put("b", () -> null);
+		priorities.put("c", () -> Double.NaN);
+		priorities.put("d", () -> -1.0);
+
+		assertEquals(Arrays.asList("d", "a", "b", "c"), order.update());
+	}
+
+	@Test
+	public void testTies() {
+		PriorityOrder<String> order = order("a", "b", "c", "d");
+		priorities.put("a", PriorityOrder.constant(1));
+		priorities.put("b", PriorityOrder.constant(2));
+		priorities.put("c", PriorityOrder.constant(1));
+		priorities.put("d", PriorityOrder.constant(2));
+
+		assertEquals(Arrays.asList("b", "d", "a", "c"), order.update());
+	}
+
+	@Test
+	public void testDynamicPriorities() {
+		double[] values = { 1, 2, 3 };
+		PriorityOrder<String> order = order("a", "b", "c");
+		priorities.put("a", () -> values[0]);
+		priorities.put("b", () -> values[1]);
+		priorities.put("c", () -> values[2]);
+
+		assertEquals(Arrays.asList("c", "b", "a"), order.update());
+		assertEquals(3, evaluations);
+
+		// Every update evaluates priorities again and sorts only what has
+		// changed
+		values[0] = 4;
+		assertEquals(Arrays.asList("a", "c", "b"), order.update());
+		values[2] = 2;
+		assertEquals(Arrays.asList("a", "b", "c"), order.update());
+		assertEquals(Arrays.asList("a", "b", "c"), order.update());
+		assertEquals(12, evaluations);
+
+		// Items added later follow items of the same priority
+		order.add("d");
+		priorities.put("d", PriorityOrder.constant(2));
+		assertEquals(Arrays.asList("a", "b", "c", "d"), order.update());
+	}
+
+	@Test
+	public void testConstantPriorities() {
+		PriorityOrder<String> order = order("a", "b");
+		priorities.put("a", PriorityOrder.constant(1));
+		priorities.put("b", PriorityOrder.constant(2));
+
+		assertEquals(Arrays.asList("b", "a"), order.update());
+		assertEquals(Arrays.asList("b", "a"), order.update());
+		assertEquals(2, evaluations);
+
+		// Adding an item makes the order evaluate priorities once again
+		order.add("c");
+		priorities.put("c", () -> 3.0);
+		assertEquals(Arrays.asList("c", "b", "a"), order.update());
+		assertEquals(Arrays.asList("c", "b", "a"), order.update());
+		assertEquals(8, evaluations);
+	}
+
+	private PriorityOrder<String> order(String... items) {
+		PriorityOrder<String> order = new PriorityOrder<>(item -> {
+			evaluations++;
+			return priorities.get(item);
+		});
+		for (String item : items)
+			order.add(item);
+		return order;
+	}
+}
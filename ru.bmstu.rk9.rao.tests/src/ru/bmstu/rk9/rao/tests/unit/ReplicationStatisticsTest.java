@@ -0,0 +1,39 @@
+package ru.bmstu.rk9.rao.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import ru.bmstu.rk9.rao.lib.json.JSONArray;
+import ru.bmstu.rk9.rao.lib.json.JSONObject;
+import ru.bmstu.rk9.rao.lib.result.ReplicationStatistics;
+
+public class ReplicationStatisticsTest {
+	@Test
+	public void testConfidenceInterval() {
+		ReplicationStatistics statistics = new ReplicationStatistics(0.95);
+		for (double value : new double[] { 1, 2, 3, 4, 5 })
+			statistics.addReplication(Arrays.asList(new JSONObject().put("name", "model.result").put("Mean", value)
+					.put("Last value", 10).put("type", "value")));
+
+		JSONArray data = statistics.getData();
+		assertEquals(1, data.length());
+		assertEquals("model.result", data.getJSONObject(0).getString("name"));
+
+		JSONObject resultStatistics = data.getJSONObject(0).getJSONObject("statistics");
+		assertFalse(resultStatistics.has("type"));
+
+		JSONObject mean = resultStatistics.getJSONObject("Mean");
+		assertEquals(5, mean.getInt("replications"));
+		assertEquals(3, mean.getDouble("mean"), 1e-12);
+		// t(0.975, 4) * sqrt(2.5) / sqrt(5)
+		assertEquals(3 - 1.963243, mean.getDouble("confidence_low"), 1e-5);
+		assertEquals(3 + 1.963243, mean.getDouble("confidence_high"), 1e-5);
+
+		JSONObject lastValue = resultStatistics.getJSONObject("Last value");
+		assertEquals(10, lastValue.getDouble("confidence_low"), 1e-12);
+		assertEquals(10, lastValue.getDouble("confidence_high"), 1e-12);
+	}
+}
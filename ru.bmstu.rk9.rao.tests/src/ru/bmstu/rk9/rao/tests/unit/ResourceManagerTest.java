@@ -0,0 +1,340 @@
+package ru.bmstu.rk9.rao.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import ru.bmstu.rk9.rao.lib.exception.RaoLibException;
+import ru.bmstu.rk9.rao.lib.resource.ComparableResource;
+import ru.bmstu.rk9.rao.lib.resource.ResourceIndex;
+import ru.bmstu.rk9.rao.lib.resource.ResourceManager;
+
+public class ResourceManagerTest {
+	@Test
+	public void testChurn() {
+		ResourceManager<TestResource> manager = new ResourceManager<>();
+		TreeMap<Integer, TestResource> expected = new TreeMap<>();
+		Random random = new Random(3);
+
+		for (int i = 0; i < 200000; i++) {
+			if (expected.isEmpty() || random.nextInt(100) < 52) {
+				TestResource resource = new TestResource();
+				manager.addResource(resource);
+				expected.put(resource.getNumber(), resource);
+			} else {
+				// Mostly erase the oldest ones, as transacts do
+				Integer number = random.nextBoolean() ? expected.firstKey()
+						: expected.ceilingKey(random.nextInt(expected.lastKey() + 1));
+				manager.eraseResource(expected.remove(number));
+				assertNull(manager.getResource(number));
+			}
+
+			if (i % 1000 == 0)
+				assertSameResources(expected, manager);
+		}
+
+		assertSameResources(expected, manager);
+		for (TestResource resource : expected.values())
+			assertSame(resource, manager.getResource(resource.getNumber()));
+	}
+
+	@Test
+	public void testEraseWhileIterating() {
+		ResourceManager<TestResource> manager = new ResourceManager<>();
+		for (int i = 0; i < 1000; i++)
+			manager.addResource(new TestResource());
+
+		List<Integer> visited = new ArrayList<>();
+		Iterator<TestResource> iterator = manager.getAll().iterator();
+		while (iterator.hasNext()) {
+			TestResource resource = iterator.next();
+			visited.add(resource.getNumber());
+			if (resource.getNumber() % 10 != 0)
+				manager.eraseResource(resource);
+		}
+
+		assertEquals(1000, visited.size());
+		for (int i = 0; i < visited.size(); i++)
+			assertEquals(Integer.valueOf(i), visited.get(i));
+
+		assertEquals(100, manager.getAll().size());
+		for (TestResource resource : manager.getAll())
+			assertEquals(0, resource.getNumber() % 10);
+	}
+
+	@Test
+	public void testNameLookup() {
+		ResourceManager<TestResource> manager = new ResourceManager<>();
+		List<TestResource> resources = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			TestResource resource = new TestResource();
+			if (i % 2 == 0)
+				resource.setName("model.resource" + i);
+			manager.addResource(resource);
+			resources.add(resource);
+		}
+
+		// Resources declared in model get their names after being added
+		for (int i = 1; i < 1000; i += 2)
+			resources.get(i).setName("model.resource" + i);
+
+		ResourceManager<TestResource> copy = manager.shallowCopy();
+		for (int i = 0; i < 1000; i++) {
+			assertSame(resources.get(i), manager.getResource("model.resource" + i));
+			assertSame(resources.get(i), copy.getResource("model.resource" + i));
+		}
+
+		manager.eraseResource(resources.get(10));
+		assertSame(resources.get(10), copy.getResource("model.resource10"));
+		try {
+			manager.getResource("model.resource10");
+			fail("Erased resource found by name");
+		} catch (RaoLibException e) {
+		}
+
+		TestResource duplicate = new TestResource();
+		duplicate.setName("model.resource20");
+		try {
+			manager.addResource(duplicate);
+			fail("Resource with duplicate name added");
+		} catch (RaoLibException e) {
+		}
+	}
+
+	@Test
+	public void testAccessibleTracking() {
+		ResourceManager<TestResource> manager = new ResourceManager<>();
+		List<TestResource> resources = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			TestResource resource = new TestResource();
+			manager.addResource(resource);
+			resources.add(resource);
+		}
+		assertSameAccessible(manager);
+
+		Random random = new Random(5);
+		ResourceManager<TestResource> copy = manager;
+		for (int i = 0; i < 20000; i++) {
+			TestResource resource = resources.get(random.nextInt(resources.size()));
+			switch (random.nextInt(6)) {
+			case 0:
+			case 1:
+				resource.take();
+				break;
+			case 2:
+			case 3:
+				resource.put();
+				break;
+			case 4:
+				if (copy.getResource(resource.getNumber()) != null) {
+					copy.eraseResource(resource);
+					resources.remove(resource);
+				}
+				TestResource added = new TestResource();
+				copy.addResource(added);
+				resources.add(added);
+				break;
+			case 5:
+				// Copies share instances, the last one asked takes over tracking
+				if (random.nextBoolean()) {
+					assertSameAccessible(manager);
+					copy = manager.shallowCopy();
+				}
+				break;
+			}
+
+			if (i % 100 == 0)
+				assertSameAccessible(copy);
+		}
+	}
+
+	@Test
+	public void testShallowCopy() {
+		ResourceManager<ValueResource> manager = new ResourceManager<>();
+		for (int i = 0; i < 5000; i++)
+			manager.addResource(new ValueResource(i));
+
+		ResourceManager<ValueResource> copy = manager.shallowCopy();
+		assertTrue(copy.checkEqual(manager));
+		assertEquals(manager.stateHash(), copy.stateHash());
+
+		ValueResource shared = copy.getResource(1234);
+		assertSame(manager.getResource(1234), shared);
+		assertTrue(shared.isShallowCopy());
+
+		ValueResource changed = copy.copyOnWrite(shared);
+		changed.setValue(-1);
+		assertSame(changed, copy.copyOnWrite(shared));
+		assertFalse(changed.isShallowCopy());
+		assertEquals(1234, manager.getResource(1234).value);
+		assertFalse(copy.checkEqual(manager));
+		assertTrue(manager.stateHash() != copy.stateHash());
+
+		copy.eraseResource(copy.getResource(10));
+		copy.addResource(new ValueResource(5000));
+		assertEquals(5000, copy.getAll().size());
+		assertNull(copy.getResource(10));
+		assertNotNull(manager.getResource(10));
+		assertNull(manager.getResource(5000));
+
+		changed.setValue(1234);
+		assertFalse(copy.checkEqual(manager));
+		manager.eraseResource(manager.getResource(10));
+		manager.addResource(new ValueResource(5000));
+		assertTrue(copy.checkEqual(manager));
+		assertEquals(manager.stateHash(), copy.stateHash());
+	}
+
+	@Test
+	public void testVersions() {
+		ResourceManager<ValueResource> manager = new ResourceManager<>();
+		for (int i = 0; i < 100; i++)
+			manager.addResource(new ValueResource(i));
+
+		long version = manager.getVersion();
+		long accessibilityHash = manager.getAccessibilityHash();
+
+		// Taking and putting back changes nothing
+		ValueResource resource = manager.getResource(42);
+		resource.take();
+		assertTrue(manager.getAccessibilityHash() != accessibilityHash);
+		resource.put();
+		assertEquals(accessibilityHash, manager.getAccessibilityHash());
+		assertEquals(version, manager.getVersion());
+
+		ResourceManager<ValueResource> copy = manager.shallowCopy();
+		assertEquals(version, copy.getVersion());
+		copy.copyOnWrite(resource).setValue(-1);
+		assertTrue(copy.getVersion() != version);
+		assertEquals(version, manager.getVersion());
+
+		manager.eraseResource(manager.getResource(7));
+		assertTrue(manager.getVersion() != version);
+		assertTrue(manager.getAccessibilityHash() != accessibilityHash);
+	}
+
+	@Test
+	public void testIndex() {
+		ResourceManager<ValueResource> manager = new ResourceManager<>();
+		for (int i = 0; i < 1000; i++)
+			manager.addResource(new ValueResource(i % 10));
+
+		ResourceIndex<ValueResource> index = manager.getIndex("value", r -> r.value, true);
+		assertEquals(100, index.getAccessible(3).size());
+		assertEquals(300, index.getAccessibleBetween(3, 5).size());
+		assertEquals(0, index.getAccessibleWithMin().getNumber());
+		assertEquals(9, index.getAccessibleWithMax().getNumber());
+
+		manager.getResource(9).take();
+		manager.getResource(42).setValue(100);
+		manager.eraseResource(manager.getResource(0));
+		manager.addResource(new ValueResource(-1));
+		assertEquals(99, index.getAccessible(2).size());
+		assertEquals(42, index.getAccessibleWithMax().getNumber());
+		assertEquals(1000, index.getAccessibleWithMin().getNumber());
+		assertEquals(19, index.getAccessible(9).get(0).getNumber());
+
+		// Both managers keep the index, which is copied on the first change
+		ResourceManager<ValueResource> copy = manager.shallowCopy();
+		assertSame(index, manager.getIndex("value", r -> r.value, true));
+		ResourceIndex<ValueResource> copyIndex = copy.getIndex("value", r -> r.value, true);
+		copy.copyOnWrite(copy.getResource(42)).setValue(5);
+		assertEquals(101, copyIndex.getAccessible(5).size());
+		assertEquals(100, index.getAccessible(5).size());
+
+		manager.getResource(43).setValue(5);
+		assertEquals(101, copyIndex.getAccessible(5).size());
+		assertEquals(101, index.getAccessible(5).size());
+		assertEquals(42, index.getAccessibleWithMax().getNumber());
+		assertEquals(43, copyIndex.getAccessible(3).get(4).getNumber());
+		assertEquals(99, index.getAccessible(3).size());
+	}
+
+	@Test
+	public void testIndexOfZeros() {
+		ResourceManager<ValueResource> manager = new ResourceManager<>();
+		for (int i = 0; i < 10; i++)
+			manager.addResource(new ValueResource(i % 2));
+
+		// Negated zero is negative zero
+		ResourceIndex<ValueResource> index = manager.getIndex("negated", r -> -(double) r.value, true);
+		assertEquals(5, index.getAccessible(0.0).size());
+		assertEquals(5, index.getAccessible(-0.0).size());
+		assertEquals(5, index.getAccessibleBetween(0.0, 0.0).size());
+		assertEquals(0, index.getAccessibleWithMax().getNumber());
+
+		ResourceIndex<ValueResource> hashIndex = manager.getIndex("negated", r -> -(double) r.value, false);
+		assertEquals(5, hashIndex.getAccessible(0.0).size());
+	}
+
+	private static class ValueResource extends ComparableResource<ValueResource> {
+		ValueResource(int value) {
+			this.value = value;
+		}
+
+		int value;
+
+		void setValue(int value) {
+			this.value = value;
+			stateChanged();
+		}
+
+		@Override
+		public boolean checkEqual(ValueResource other) {
+			return value == other.value;
+		}
+
+		@Override
+		public int stateHash() {
+			return value;
+		}
+
+		@Override
+		public ValueResource deepCopy() {
+			ValueResource copy = new ValueResource(value);
+			copy.setNumber(number);
+			return copy;
+		}
+
+		@Override
+		public String getTypeName() {
+			return "ValueResource";
+		}
+
+		@Override
+		public void erase() {
+		}
+
+		@Override
+		public ByteBuffer serialize() {
+			return null;
+		}
+	}
+
+	private void assertSameAccessible(ResourceManager<TestResource> manager) {
+		List<TestResource> expected = new ArrayList<>();
+		for (TestResource resource : manager.getAll())
+			if (resource.isAccessible())
+				expected.add(resource);
+
+		assertEquals(expected.size(), manager.getAccessible().size());
+		assertEquals(expected, new ArrayList<>(manager.getAccessible()));
+	}
+
+	private void assertSameResources(TreeMap<Integer, TestResource> expected,
+			ResourceManager<TestResource> manager) {
+		assertEquals(expected.size(), manager.getAll().size());
+
+		Iterator<TestResource> iterator = manager.getAll().iterator();
+		for (TestResource resource : expected.values())
+			assertSame(resource, iterator.next());
+		assertFalse(iterator.hasNext());
+	}
+}
@@ -0,0 +1,613 @@
+package ru.bmstu.rk9.rao.tests.unit;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ru.bmstu.rk9.rao.lib.database.Database;
+import ru.bmstu.rk9.rao.lib.database.SerializationObjectsNames;
+import ru.bmstu.rk9.rao.lib.dpt.Edge;
+import ru.bmstu.rk9.rao.lib.dpt.Search;
+import ru.bmstu.rk9.rao.lib.dpt.SearchMetrics;
+import ru.bmstu.rk9.rao.lib.dpt.SearchStrategy;
+import ru.bmstu.rk9.rao.lib.pattern.Rule;
+import ru.bmstu.rk9.rao.lib.resource.ComparableResource;
+import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator;
+import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator.SimulationStopCode;
+import ru.bmstu.rk9.rao.lib.simulator.Simulator;
+import ru.bmstu.rk9.rao.lib.simulator.SimulatorContext;
+import ru.bmstu.rk9.rao.lib.simulator.SimulatorInitializationInfo;
+import ru.bmstu.rk9.rao.lib.simulator.SimulatorPreinitializationInfo;
+
+public class SearchTest {
+	private static final int TARGET = 97;
+	private static final int[] STEPS = { 1, 2, 3, 5, 7, 11, -1, -2 };
+
+	@Test
+	public void testParallelExpansion() {
+		String sequentialPath = findPath(1);
+
+		assertTrue(sequentialPath.length() > 0);
+		for (int parallelism : new int[] { 2, 3, 8 })
+			assertEquals(sequentialPath, findPath(parallelism));
+	}
+
+	@Test
+	public void testBoundedStrategies() {
+		double optimalCost = cost(findPath(1));
+
+		assertEquals(optimalCost, cost(findPath(1, SearchStrategy.IDA_STAR)), 1e-9);
+		assertEquals(optimalCost, cost(findPath(1, SearchStrategy.SMA_STAR)), 1e-9);
+		assertEquals(optimalCost, cost(findPath(2, SearchStrategy.SMA_STAR)), 1e-9);
+		assertTrue(cost(findPath(1, SearchStrategy.BEAM)) >= optimalCost);
+	}
+
+	@Test
+	public void testSlidingPuzzle() {
+		int[] board = scramble(100, 3);
+		int optimalMoves = findOptimalMoves(board);
+
+		assertTrue(optimalMoves > 10);
+		assertEquals(optimalMoves, solvePuzzle(board, SearchStrategy.A_STAR));
+		assertEquals(optimalMoves, solvePuzzle(board, SearchStrategy.IDA_STAR));
+	}
+
+	@Test
+	public void testMetrics() {
+		int[] board = scramble(100, 3);
+		solvePuzzle(board, SearchStrategy.A_STAR);
+		SearchMetrics metrics = puzzleSearch.getLastMetrics();
+
+		assertEquals(findOptimalMoves(board), metrics.getSolutionDepth());
+		assertTrue(metrics.getCountExpanded() > 0);
+		assertTrue(metrics.getCountDuplicates() > 0);
+		assertTrue(metrics.getPeakOpen() > 0);
+		assertTrue(metrics.getEffectiveBranchingFactor() > 1 && metrics.getEffectiveBranchingFactor() < 4);
+		// Manhattan distance never overestimates
+		assertEquals(0, metrics.getMaxHeuristicOverestimate(), 0);
+		assertTrue(metrics.getMeanHeuristicError() >= 0);
+
+		int[] sampleExpansions = metrics.getSampleExpansions();
+		for (int i = 1; i < sampleExpansions.length; i++)
+			assertTrue(sampleExpansions[i] > sampleExpansions[i - 1]);
+	}
+
+	@Test(timeout = 10000)
+	public void testCycleWithoutGoal() {
+		CurrentSimulator.bindContext(new SimulatorContext());
+		try {
+			SerializationObjectsNames.set(new ArrayList<String>());
+			SimulatorPreinitializationInfo preinitializationInfo = new SimulatorPreinitializationInfo();
+			preinitializationInfo.resourceClasses.add(Counter.class);
+			CurrentSimulator.set(new Simulator());
+			CurrentSimulator.preinitialize(preinitializationInfo);
+
+			SimulatorInitializationInfo initializationInfo = new SimulatorInitializationInfo();
+			initializationInfo.initList.add(() -> CurrentSimulator.getModelState().addResource(new Counter()));
+			CycleSearch search = new CycleSearch();
+			initializationInfo.decisionPoints.add(search);
+
+			CurrentSimulator.initialize(initializationInfo);
+			assertEquals(SimulationStopCode.NO_MORE_EVENTS, CurrentSimulator.run());
+
+			// Search has failed after visiting every state of the cycle
+			SearchMetrics metrics = search.getLastMetrics();
+			assertEquals(0, metrics.getSolutionDepth());
+			assertTrue(Double.isNaN(metrics.getEffectiveBranchingFactor()));
+			assertTrue(metrics.getCountExpanded() >= CYCLE_LENGTH);
+			assertEquals(0, counter().value);
+		} finally {
+			CurrentSimulator.unbindContext();
+		}
+	}
+
+	private static double cost(String path) {
+		double cost = 0;
+		for (String step : path.split("(?=[+-])")) {
+			if (!step.isEmpty())
+				cost += Math.abs(Integer.parseInt(step)) == 1 ? 1.5 : 1;
+		}
+		return cost;
+	}
+
+	private String findPath(int parallelism) {
+		return findPath(parallelism, SearchStrategy.A_STAR);
+	}
+
+	private String findPath(int parallelism, SearchStrategy strategy) {
+		CurrentSimulator.bindContext(new SimulatorContext());
+		try {
+			SerializationObjectsNames.set(new ArrayList<String>());
+			SimulatorPreinitializationInfo preinitializationInfo = new SimulatorPreinitializationInfo();
+			preinitializationInfo.resourceClasses.add(Counter.class);
+			CurrentSimulator.set(new Simulator());
+			CurrentSimulator.preinitialize(preinitializationInfo);
+
+			SimulatorInitializationInfo initializationInfo = new SimulatorInitializationInfo();
+			initializationInfo.initList.add(() -> CurrentSimulator.getModelState().addResource(new Counter()));
+			initializationInfo.terminateConditions.add(() -> counter().value == TARGET);
+			initializationInfo.decisionPoints.add(new CounterSearch(parallelism, strategy));
+
+			CurrentSimulator.initialize(initializationInfo);
+			assertEquals(SimulationStopCode.TERMINATE_CONDITION, CurrentSimulator.run());
+			return counter().path;
+		} finally {
+			CurrentSimulator.unbindContext();
+		}
+	}
+
+	private static Counter counter() {
+		return CurrentSimulator.getModelState().getAll(Counter.class).iterator().next();
+	}
+
+	// Board of the sliding puzzle lists tiles by places, the hole is 0. Tiles
+	// are in order with the hole at the last place when the puzzle is solved
+	private static final int SIZE = 3;
+	private static final int[] MOVES = { -1, 1, -SIZE, SIZE };
+
+	private static int[] scramble(int numberOfMoves, long seed) {
+		int[] board = new int[SIZE * SIZE];
+		for (int place = 0; place < board.length - 1; place++)
+			board[place] = place + 1;
+
+		Random random = new Random(seed);
+		int hole = board.length - 1;
+		for (int i = 0; i < numberOfMoves; i++) {
+			int target = hole + MOVES[random.nextInt(MOVES.length)];
+			if (!isAdjacent(hole, target))
+				continue;
+
+			board[hole] = board[target];
+			board[target] = 0;
+			hole = target;
+		}
+
+		return board;
+	}
+
+	private static boolean isAdjacent(int place, int target) {
+		if (target < 0 || target >= SIZE * SIZE)
+			return false;
+		return place / SIZE == target / SIZE || place % SIZE == target % SIZE;
+	}
+
+	private static int findOptimalMoves(int[] board) {
+		int[] solved = scramble(0, 0);
+		Set<String> visited = new HashSet<String>();
+		Deque<int[]> level = new ArrayDeque<int[]>();
+		level.add(board);
+		visited.add(Arrays.toString(board));
+
+		for (int moves = 0; !level.isEmpty(); moves++) {
+			Deque<int[]> nextLevel = new ArrayDeque<int[]>();
+			for (int[] current : level) {
+				if (Arrays.equals(current, solved))
+					return moves;
+
+				int hole = 0;
+				while (current[hole] != 0)
+					hole++;
+
+				for (int move : MOVES) {
+					if (!isAdjacent(hole, hole + move))
+						continue;
+
+					int[] next = current.clone();
+					next[hole] = next[hole + move];
+					next[hole + move] = 0;
+					if (visited.add(Arrays.toString(next)))
+						nextLevel.add(next);
+				}
+			}
+			level = nextLevel;
+		}
+
+		return -1;
+	}
+
+	private PuzzleSearch puzzleSearch;
+
+	private int solvePuzzle(int[] board, SearchStrategy strategy) {
+		CurrentSimulator.bindContext(new SimulatorContext());
+		try {
+			SerializationObjectsNames.set(new ArrayList<String>());
+			SimulatorPreinitializationInfo preinitializationInfo = new SimulatorPreinitializationInfo();
+			preinitializationInfo.resourceClasses.add(Tile.class);
+			preinitializationInfo.resourceClasses.add(Hole.class);
+			CurrentSimulator.set(new Simulator());
+			CurrentSimulator.preinitialize(preinitializationInfo);
+
+			SimulatorInitializationInfo initializationInfo = new SimulatorInitializationInfo();
+			initializationInfo.initList.add(() -> {
+				for (int place = 0; place < board.length; place++) {
+					if (board[place] == 0)
+						CurrentSimulator.getModelState().addResource(new Hole(place));
+					else
+						CurrentSimulator.getModelState().addResource(new Tile(board[place], place));
+				}
+			});
+			initializationInfo.terminateConditions.add(() -> distanceToSolution() == 0);
+			puzzleSearch = new PuzzleSearch(strategy);
+			initializationInfo.decisionPoints.add(puzzleSearch);
+
+			CurrentSimulator.initialize(initializationInfo);
+			assertEquals(SimulationStopCode.TERMINATE_CONDITION, CurrentSimulator.run());
+			return hole().moves;
+		} finally {
+			CurrentSimulator.unbindContext();
+		}
+	}
+
+	private static Hole hole() {
+		return CurrentSimulator.getModelState().getAll(Hole.class).iterator().next();
+	}
+
+	private static int distanceToSolution() {
+		int distance = 0;
+		for (Tile tile : CurrentSimulator.getModelState().getAll(Tile.class)) {
+			int goal = tile.value - 1;
+			distance += Math.abs(goal / SIZE - tile.place / SIZE) + Math.abs(goal % SIZE - tile.place % SIZE);
+		}
+		return distance;
+	}
+
+	public static class Tile extends ComparableResource<Tile> {
+		Tile(int value, int place) {
+			this.value = value;
+			this.place = place;
+		}
+
+		private final int value;
+		private int place;
+
+		public void setPlace(int place) {
+			Tile actual = this;
+			if (isShallowCopy())
+				actual = CurrentSimulator.getModelState().copyOnWrite(this);
+
+			actual.place = place;
+			actual.stateChanged();
+		}
+
+		@Override
+		public boolean checkEqual(Tile other) {
+			return value == other.value && place == other.place;
+		}
+
+		@Override
+		public int stateHash() {
+			return 31 * value + place;
+		}
+
+		@Override
+		public Tile deepCopy() {
+			Tile copy = new Tile(value, place);
+			copy.setNumber(number);
+			return copy;
+		}
+
+		@Override
+		public String getTypeName() {
+			return "test.Tile";
+		}
+
+		@Override
+		public void erase() {
+		}
+
+		@Override
+		public ByteBuffer serialize() {
+			return null;
+		}
+	}
+
+	public static class Hole extends ComparableResource<Hole> {
+		Hole(int place) {
+			this.place = place;
+		}
+
+		private int place;
+		private int moves = 0;
+
+		public void moveTo(int place) {
+			Hole actual = this;
+			if (isShallowCopy())
+				actual = CurrentSimulator.getModelState().copyOnWrite(this);
+
+			actual.place = place;
+			actual.moves++;
+			actual.stateChanged();
+		}
+
+		// Number of moves made is not a part of the state
+		@Override
+		public boolean checkEqual(Hole other) {
+			return place == other.place;
+		}
+
+		@Override
+		public int stateHash() {
+			return place;
+		}
+
+		@Override
+		public Hole deepCopy() {
+			Hole copy = new Hole(place);
+			copy.setNumber(number);
+			copy.moves = moves;
+			return copy;
+		}
+
+		@Override
+		public String getTypeName() {
+			return "test.Hole";
+		}
+
+		@Override
+		public void erase() {
+		}
+
+		@Override
+		public ByteBuffer serialize() {
+			return null;
+		}
+	}
+
+	private static class Move extends Rule {
+		Move(int move) {
+			this.move = move;
+		}
+
+		private final int move;
+		private Hole hole;
+		private Tile tile;
+
+		@Override
+		public boolean selectRelevantResources() {
+			hole = hole();
+			tile = null;
+			if (!isAdjacent(hole.place, hole.place + move))
+				return false;
+
+			for (Tile candidate : CurrentSimulator.getModelState().getAccessible(Tile.class)) {
+				if (candidate.place == hole.place + move)
+					tile = candidate;
+			}
+			if (tile == null)
+				return false;
+
+			tile.take();
+			relevantResourcesNumbers.add(tile.getNumber());
+			return true;
+		}
+
+		@Override
+		protected void execute() {
+			int place = tile.place;
+			tile.setPlace(hole.place);
+			hole.moveTo(place);
+		}
+
+		@Override
+		public void finish() {
+			if (tile != null)
+				tile.put();
+		}
+
+		@Override
+		public String getTypeName() {
+			return "test.Move";
+		}
+	}
+
+	private static class PuzzleSearch extends Search {
+		PuzzleSearch(SearchStrategy strategy) {
+			this.strategy = strategy;
+		}
+
+		@Override
+		protected void initializeEdges() {
+			for (int move : MOVES)
+				addActivity(new Edge(() -> new Move(move), 1));
+		}
+
+		@Override
+		protected void init() {
+			compareTops = true;
+			heuristic = () -> (double) distanceToSolution();
+			terminateCondition = () -> distanceToSolution() == 0;
+		}
+
+		@Override
+		public String getTypeName() {
+			return "test.PuzzleSearch";
+		}
+	}
+
+	public static class Counter extends ComparableResource<Counter> {
+		private int value = 0;
+		private String path = "";
+
+		public void add(int step) {
+			Counter actual = this;
+			if (isShallowCopy())
+				actual = CurrentSimulator.getModelState().copyOnWrite(this);
+
+			actual.value += step;
+			actual.path += (step > 0 ? "+" : "") + step;
+			actual.stateChanged();
+			CurrentSimulator.getDatabase().memorizeResourceEntry(actual, Database.ResourceEntryType.ALTERED);
+		}
+
+		// Path taken to the value is not a part of the state
+		@Override
+		public boolean checkEqual(Counter other) {
+			return value == other.value;
+		}
+
+		@Override
+		public int stateHash() {
+			return value;
+		}
+
+		@Override
+		public Counter deepCopy() {
+			Counter copy = new Counter();
+			copy.setNumber(number);
+			copy.value = value;
+			copy.path = path;
+			return copy;
+		}
+
+		@Override
+		public String getTypeName() {
+			return "test.Counter";
+		}
+
+		@Override
+		public void erase() {
+		}
+
+		@Override
+		public ByteBuffer serialize() {
+			return null;
+		}
+	}
+
+	private static class Add extends Rule {
+		Add(int step) {
+			this.step = step;
+		}
+
+		private final int step;
+		private Counter counter;
+
+		@Override
+		public boolean selectRelevantResources() {
+			Iterator<Counter> accessible = CurrentSimulator.getModelState().getAccessible(Counter.class).iterator();
+			counter = accessible.hasNext() ? accessible.next() : null;
+			if (counter == null || Math.abs(counter.value + step - TARGET) > TARGET) {
+				counter = null;
+				return false;
+			}
+
+			counter.take();
+			relevantResourcesNumbers.add(counter.getNumber());
+			return true;
+		}
+
+		@Override
+		protected void execute() {
+			counter.add(step);
+		}
+
+		@Override
+		public void finish() {
+			if (counter != null)
+				counter.put();
+		}
+
+		@Override
+		public String getTypeName() {
+			return "test.Add";
+		}
+	}
+
+	private static class CounterSearch extends Search {
+		CounterSearch(int parallelism, SearchStrategy strategy) {
+			this.parallelism = parallelism;
+			this.strategy = strategy;
+			this.nodeBudget = 40;
+			this.beamWidth = 4;
+		}
+
+		@Override
+		protected void initializeEdges() {
+			for (int step : STEPS)
+				addActivity(new Edge(() -> new Add(step), Math.abs(step) == 1 ? 1.5 : 1));
+		}
+
+		@Override
+		protected void init() {
+			compareTops = true;
+			heuristic = () -> Math.abs(TARGET - counter().value) / 11.0;
+			terminateCondition = () -> counter().value == TARGET;
+		}
+
+		@Override
+		public String getTypeName() {
+			return "test.CounterSearch";
+		}
+	}
+
+	// Counter goes round the cycle both ways, one of them at no cost, and
+	// never reaches the goal
+	private static final int CYCLE_LENGTH = 4;
+
+	private static class Turn extends Rule {
+		Turn(int step) {
+			this.step = step;
+		}
+
+		private final int step;
+		private Counter counter;
+
+		@Override
+		public boolean selectRelevantResources() {
+			counter = CurrentSimulator.getModelState().getAccessible(Counter.class).iterator().next();
+			counter.take();
+			relevantResourcesNumbers.add(counter.getNumber());
+			return true;
+		}
+
+		@Override
+		protected void execute() {
+			counter.add(Math.floorMod(counter.value + step, CYCLE_LENGTH) - counter.value);
+		}
+
+		@Override
+		public void finish() {
+			if (counter != null)
+				counter.put();
+		}
+
+		@Override
+		public String getTypeName() {
+			return "test.Turn";
+		}
+	}
+
+	private static class CycleSearch extends Search {
+		CycleSearch() {
+			this.strategy = SearchStrategy.IDA_STAR;
+		}
+
+		@Override
+		protected void initializeEdges() {
+			addActivity(new Edge(() -> new Turn(1), 0));
+			addActivity(new Edge(() -> new Turn(-1), 1));
+		}
+
+		@Override
+		protected void init() {
+			compareTops = false;
+			heuristic = () -> 0.0;
+			terminateCondition = () -> counter().value == CYCLE_LENGTH;
+		}
+
+		@Override
+		public String getTypeName() {
+			return "test.CycleSearch";
+		}
+	}
+}
@@ -12,6 +12,11 @@ public class TestResource extends ComparableResource<TestResource> {
 		return false;
 	}
 
+	@Override
+	public int stateHash() {
+		return 0;
+	}
+
 	@Override
 	public String getTypeName() {
 		return "TestResource";
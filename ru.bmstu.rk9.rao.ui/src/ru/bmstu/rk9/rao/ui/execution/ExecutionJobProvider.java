@@ -13,6 +13,7 @@ import org.eclipse.xtext.xbase.typesystem.IBatchTypeResolver;
 import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator;
 import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator.SimulationStopCode;
 import ru.bmstu.rk9.rao.lib.simulator.Simulator;
+import ru.bmstu.rk9.rao.lib.simulator.SimulatorInitializationInfo;
 import ru.bmstu.rk9.rao.ui.animation.AnimationView;
 import ru.bmstu.rk9.rao.ui.console.ConsoleView;
 import ru.bmstu.rk9.rao.ui.gef.process.ProcessParsingException;
@@ -77,8 +78,12 @@ public class ExecutionJobProvider {
 
 				display.syncExec(() -> AnimationView.initialize(parser.getAnimationFrames()));
 
+				// Time scale only needs to know the time model has advanced to
+				SimulatorInitializationInfo initializationInfo = parser.getSimulatorInitializationInfo();
+				initializationInfo.coalesceNotifications = true;
+
 				try {
-					CurrentSimulator.initialize(parser.getSimulatorInitializationInfo());
+					CurrentSimulator.initialize(initializationInfo);
 				} catch (Exception e) {
 					e.printStackTrace();
 					return new Status(IStatus.ERROR, "ru.bmstu.rk9.rao.ui", "Simulator initialization failed", e);
@@ -16,6 +16,7 @@ import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IProjectDescription;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ProjectScope;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.emf.common.util.EList;
@@ -33,6 +34,7 @@ import ru.bmstu.rk9.rao.lib.database.Database.DataType;
 import ru.bmstu.rk9.rao.lib.dpt.AbstractDecisionPoint;
 import ru.bmstu.rk9.rao.lib.dpt.Logic;
 import ru.bmstu.rk9.rao.lib.dpt.Search;
+import ru.bmstu.rk9.rao.lib.event.EventSchedulerType;
 import ru.bmstu.rk9.rao.lib.exception.RaoLibException;
 import ru.bmstu.rk9.rao.lib.json.JSONArray;
 import ru.bmstu.rk9.rao.lib.json.JSONObject;
@@ -111,6 +113,12 @@ public class ModelInternalsParser {
 		simulatorPreinitializationInfo.modelStructure.put(ModelStructureConstants.LOCATION,
 				project.getLocation().toString());
 
+		// Kept in .settings/ru.bmstu.rk9.rao.ui.prefs of the project, which
+		// headless ModelLoader reads as well
+		String eventScheduler = new ProjectScope(project).getNode("ru.bmstu.rk9.rao.ui").get("EventScheduler", null);
+		if (eventScheduler != null)
+			simulatorPreinitializationInfo.eventSchedulerType = EventSchedulerType.getByName(eventScheduler);
+
 		final ResourceSet resourceSet = resourceSetProvider.get(project);
 		if (resourceSet == null) {
 			System.out.println("resource set is null");
@@ -2,10 +2,12 @@ package ru.bmstu.rk9.rao.ui.simulation;
 
 import java.text.DecimalFormat;
 import java.util.Arrays;
+import java.util.EnumSet;
 
 import org.eclipse.ui.PlatformUI;
 
 import ru.bmstu.rk9.rao.lib.notification.Subscriber;
+import ru.bmstu.rk9.rao.lib.notification.Subscription.SubscriptionType;
 import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator;
 import ru.bmstu.rk9.rao.lib.simulator.SimulatorSubscriberManager;
 import ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator.ExecutionState;
@@ -41,7 +43,9 @@ public class SimulationSynchronizer {
 
 	private final void initializeSubscribers() {
 		simulationSubscriberManager.initialize(
-				Arrays.asList(new SimulatorSubscriberInfo(simulationManager.scaleManager, ExecutionState.TIME_CHANGED),
+				Arrays.asList(
+						new SimulatorSubscriberInfo(simulationManager.scaleManager, ExecutionState.TIME_CHANGED,
+								EnumSet.of(SubscriptionType.LATEST_ONLY)),
 						new SimulatorSubscriberInfo(simulationManager.speedManager, ExecutionState.STATE_CHANGED),
 						new SimulatorSubscriberInfo(simulationManager.speedManager, ExecutionState.SEARCH_STEP),
 						new SimulatorSubscriberInfo(executionAbortedListener, ExecutionState.EXECUTION_ABORTED),
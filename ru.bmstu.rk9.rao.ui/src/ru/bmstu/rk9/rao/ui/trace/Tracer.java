@@ -319,11 +319,24 @@ public class Tracer {
 			final int countClosed = data.getInt();
 			final int countOpen = data.getInt();
 			final int countSpawned = data.getInt();
-			stringJoiner.add(traceType.toString()).add(time)
-					.add(new StringJoiner(StringFormat.ENUMERATION)
-							.add("solution cost = " + finalCost).add("total nodes = " + (countClosed + countOpen) + " ("
-									+ countClosed + " closed + " + countOpen + " open)")
-							.add("nodes spawned = " + countSpawned).getString());
+			final long elapsedNanos = data.getLong();
+			final int countDuplicates = data.getInt();
+			final int peakOpen = data.getInt();
+			skipPart(data, TypeSize.INT + TypeSize.LONG + TypeSize.INT);
+			final double branchingFactor = data.getDouble();
+
+			final StringJoiner metricsJoiner = new StringJoiner(StringFormat.ENUMERATION)
+					.add("solution cost = " + finalCost)
+					.add("total nodes = " + (countClosed + countOpen) + " (" + countClosed + " closed + " + countOpen
+							+ " open)")
+					.add("nodes spawned = " + countSpawned).add("duplicates = " + countDuplicates)
+					.add("peak open = " + peakOpen);
+			if (elapsedNanos > 0)
+				metricsJoiner.add("nodes per second = " + Math.round(countClosed * 1e9 / elapsedNanos));
+			if (!Double.isNaN(branchingFactor))
+				metricsJoiner.add("branching factor = " + branchingFactor);
+
+			stringJoiner.add(traceType.toString()).add(time).add(metricsJoiner.getString());
 			break;
 		}
 		case OPEN: {
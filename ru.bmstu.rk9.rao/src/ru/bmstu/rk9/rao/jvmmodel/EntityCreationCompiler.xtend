@@ -5,6 +5,9 @@ import org.eclipse.xtext.xbase.jvmmodel.JvmTypesBuilder
 import org.eclipse.xtext.xbase.jvmmodel.JvmTypeReferenceBuilder
 import org.eclipse.xtext.common.types.JvmDeclaredType
 import org.eclipse.xtext.common.types.JvmVisibility
+import ru.bmstu.rk9.rao.rao.Constant
+
+import org.eclipse.xtext.naming.QualifiedName
 
 class EntityCreationCompiler extends RaoEntityCompiler {
 	def static asField(EntityCreation entityCreation, JvmTypesBuilder jvmTypesBuilder,
@@ -18,4 +21,34 @@ class EntityCreationCompiler extends RaoEntityCompiler {
 			initializer = entityCreation.constructor
 		]
 	}
+
+	def static asDefaultValueField(Constant constant, JvmTypesBuilder jvmTypesBuilder,
+		JvmTypeReferenceBuilder typeReferenceBuilder, JvmDeclaredType it, boolean isPreIndexingPhase) {
+		initializeCurrent(jvmTypesBuilder, typeReferenceBuilder)
+
+		return constant.toField(constantDefaultValueName(constant.name), constant.constructor.inferredType) [
+			visibility = JvmVisibility.PRIVATE
+			static = true
+			final = true
+			initializer = constant.constructor
+		]
+	}
+
+	def static asField(Constant constant, JvmTypesBuilder jvmTypesBuilder,
+		JvmTypeReferenceBuilder typeReferenceBuilder, JvmDeclaredType it, boolean isPreIndexingPhase) {
+		initializeCurrent(jvmTypesBuilder, typeReferenceBuilder)
+		val constantQualifiedName = QualifiedName.create(qualifiedName, constant.name)
+
+		return constant.toField(constant.name, constant.constructor.inferredType) [
+			visibility = JvmVisibility.PUBLIC
+			static = true
+			final = true
+			initializer = '''
+				ru.bmstu.rk9.rao.lib.simulator.ModelParameters.get("«constantQualifiedName»", «constantDefaultValueName(constant.name)»)'''
+		]
+	}
+
+	def static constantDefaultValueName(String constantName) {
+		return "__" + constantName + "DefaultValue";
+	}
 }
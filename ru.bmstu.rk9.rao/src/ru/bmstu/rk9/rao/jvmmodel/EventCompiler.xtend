@@ -48,7 +48,7 @@ class EventCompiler extends RaoEntityCompiler {
 				body = event.body
 			]
 
-			members += event.toMethod("plan", typeRef(void)) [
+			members += event.toMethod("plan", typeRef) [
 				visibility = JvmVisibility.PUBLIC
 				static = true
 				final = true
@@ -59,6 +59,24 @@ class EventCompiler extends RaoEntityCompiler {
 				body = '''
 					«event.name» event = new «event.name»(«createEnumerationString(parameters, [name])»);
 					ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator.pushEvent(event);
+					return event;
+				'''
+			]
+
+			members += event.toMethod("planWithPriority", typeRef) [
+				visibility = JvmVisibility.PUBLIC
+				static = true
+				final = true
+				parameters += event.toParameter("time", typeRef(double))
+				parameters += event.toParameter("__priority", typeRef(int))
+				for (param : event.parameters)
+					parameters += event.toParameter(param.name, param.parameterType)
+
+				body = '''
+					«event.name» event = new «event.name»(time«FOR param : event.parameters», «param.name»«ENDFOR»);
+					event.setPriority(__priority);
+					ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator.pushEvent(event);
+					return event;
 				'''
 			]
 		]
@@ -91,6 +91,8 @@ class PatternCompiler extends RaoEntityCompiler {
 							typeRef(Iterable, tupleType.typeRef(tupleInfo.genericTupleInfo.staticTypeReferencesArray))) [
 							visibility = JvmVisibility.PUBLIC
 							static = true
+							// Elements of combinations come untyped
+							annotations += suppressWarningsAnnotation("unchecked")
 							for (tupleElementInfo : tupleInfo.tupleElementsInfo) {
 								typeParameters += tupleElementInfo.genericInfo.staticJvmTypeParameter
 								parameters +=
@@ -100,13 +102,11 @@ class PatternCompiler extends RaoEntityCompiler {
 							}
 
 							body = '''
-								java.util.Set<«tupleInfo.genericTupleInfo.genericName»<«createEnumerationString(tuple.names, [createTupleGenericTypeName])»>> combinations = new java.util.HashSet<>();
-								«FOR name : tuple.names»for(«createTupleGenericTypeName(name)» __«name» : «parameters.get(tuple.names.indexOf(name)).name») {
-									«IF tuple.names.indexOf(name) == tuple.names.size - 1»combinations.add(new «tupleInfo.genericTupleInfo.genericName»(
-										«createEnumerationString(tuple.names, [n | "__" + n])»));«ENDIF»
-									«ENDFOR»«FOR name : tuple.names»}
-								«ENDFOR»
-								return combinations;
+								«val combinationType = tupleInfo.genericTupleInfo.genericName + "<" + tuple.names.map[createTupleGenericTypeName].join(", ") + ">"»
+								return new ru.bmstu.rk9.rao.lib.pattern.Combinations<«combinationType»>(
+										java.util.Arrays.asList(«parameters.map[name].join(", ")»),
+										__elements -> new «combinationType»(
+												«FOR name : tuple.names SEPARATOR ", "»(«createTupleGenericTypeName(name)») __elements[«tuple.names.indexOf(name)»]«ENDFOR»));
 							'''
 						]
 				}
@@ -151,7 +151,7 @@ class PatternCompiler extends RaoEntityCompiler {
 
 					body = '''
 						«FOR relevant : pattern.relevantResources»
-							this.«relevant.name» = __resolve«relevant.name.toFirstUpper»();
+							this.«relevant.name» = resolveRelevant(«pattern.relevantResources.indexOf(relevant)», this::__resolve«relevant.name.toFirstUpper»);
 							if (this.«relevant.name» == null) {
 								finish();
 								return false;
@@ -162,7 +162,7 @@ class PatternCompiler extends RaoEntityCompiler {
 						«FOR tuple : pattern.relevantTuples»«
 							val tupleInfo = tupleInfoMap.get(tuple)
 							»«tupleInfo.genericTupleInfo.genericName»<«createEnumerationString(tuple.names, [toFirstUpper])
-							»> __«tupleInfo.name» = «tupleInfo.resolveMethodName»();
+							»> __«tupleInfo.name» = resolveRelevant(«pattern.relevantResources.size + pattern.relevantTuples.indexOf(tuple)», this::«tupleInfo.resolveMethodName»);
 							if (__«tupleInfo.name» == null) {
 								finish();
 								return false;
@@ -197,6 +197,42 @@ class PatternCompiler extends RaoEntityCompiler {
 					'''
 				]
 
+				members += pattern.toMethod("getReadResourceTypes", typeRef(Class, wildcard()).addArrayTypeDimension) [
+					visibility = JvmVisibility.PUBLIC
+					final = true
+					annotations += ru.bmstu.rk9.rao.jvmmodel.RaoEntityCompiler.overrideAnnotation()
+
+					body = '''
+						«val readResourceTypes = PatternDependencies.readResourceTypes(pattern, patternQualifiedName)»
+						«IF readResourceTypes === null»
+							return null;
+						«ELSE»
+							return new Class<?>[] { «FOR type : readResourceTypes SEPARATOR ", "»«type».class«ENDFOR» };
+						«ENDIF»
+					'''
+				]
+
+				members += pattern.toMethod("getRelevantReadResourceTypes", typeRef(Class, wildcard()).addArrayTypeDimension.addArrayTypeDimension) [
+					visibility = JvmVisibility.PUBLIC
+					final = true
+					annotations += ru.bmstu.rk9.rao.jvmmodel.RaoEntityCompiler.overrideAnnotation()
+
+					body = '''
+						«val stages = PatternDependencies.relevantExpressions(pattern).map[
+							PatternDependencies.readResourceTypes(it, pattern, patternQualifiedName)
+						]»
+						«IF stages.forall[it === null]»
+							return null;
+						«ELSE»
+							return new Class<?>[][] {
+								«FOR types : stages SEPARATOR ","»
+									«IF types === null»null«ELSE»{ «FOR type : types SEPARATOR ", "»«type».class«ENDFOR» }«ENDIF»
+								«ENDFOR»
+							};
+						«ENDIF»
+					'''
+				]
+
 				members += pattern.toMethod("getTypeName", typeRef(String)) [
 					visibility = JvmVisibility.PUBLIC
 					final = true
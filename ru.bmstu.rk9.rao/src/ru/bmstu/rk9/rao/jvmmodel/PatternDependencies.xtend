@@ -0,0 +1,248 @@
+package ru.bmstu.rk9.rao.jvmmodel
+
+import java.util.LinkedHashSet
+import java.util.Set
+import org.eclipse.xtext.EcoreUtil2
+import org.eclipse.xtext.common.types.JvmDeclaredType
+import org.eclipse.xtext.common.types.JvmEnumerationLiteral
+import org.eclipse.xtext.common.types.JvmEnumerationType
+import org.eclipse.xtext.common.types.JvmField
+import org.eclipse.xtext.common.types.JvmFormalParameter
+import org.eclipse.xtext.common.types.JvmMember
+import org.eclipse.xtext.common.types.JvmOperation
+import org.eclipse.xtext.common.types.JvmPrimitiveType
+import org.eclipse.xtext.common.types.JvmType
+import org.eclipse.xtext.naming.QualifiedName
+import org.eclipse.xtext.resource.XtextResource
+import org.eclipse.xtext.xbase.XAbstractFeatureCall
+import org.eclipse.xtext.xbase.XConstructorCall
+import org.eclipse.xtext.xbase.XExpression
+import org.eclipse.xtext.xbase.XVariableDeclaration
+import org.eclipse.xtext.xbase.typesystem.IBatchTypeResolver
+import org.eclipse.xtext.xbase.typesystem.IResolvedTypes
+import ru.bmstu.rk9.rao.lib.resource.ComparableResource
+import ru.bmstu.rk9.rao.rao.Pattern
+import ru.bmstu.rk9.rao.rao.RaoModel
+import ru.bmstu.rk9.rao.rao.ResourceDeclaration
+
+/*
+ * Finds resource types that relevant resources of a pattern are selected
+ * from. Analysis is conservative, anything that is not known to depend on
+ * resources only, such as time, random numbers, functions or constructors,
+ * makes the dependencies unknown. So does reading a resource parameter or a
+ * pattern parameter of a type that can be changed in place, such as a list,
+ * because such changes bypass setters and are not seen in versions.
+ */
+class PatternDependencies {
+	static val PURE_TYPES = #{
+		"java.lang.Object",
+		"java.lang.String",
+		"java.lang.Boolean",
+		"java.lang.Integer",
+		"java.lang.Long",
+		"java.lang.Double",
+		"java.lang.Float",
+		"java.lang.Short",
+		"java.lang.Byte",
+		"java.lang.Character",
+		"java.lang.Number",
+		"java.lang.Enum",
+		"java.lang.Comparable",
+		"java.lang.Iterable",
+		"java.lang.Math",
+		"java.util.Collection",
+		"java.util.List",
+		"java.util.Set",
+		"java.util.Map",
+		"java.util.Iterator",
+		"java.util.Objects",
+		"ru.bmstu.rk9.rao.lib.runtime.RaoCollectionExtensions",
+		"ru.bmstu.rk9.rao.lib.runtime.RaoObjectExtensions"
+	}
+
+	static val IMMUTABLE_TYPES = #{
+		"java.lang.String",
+		"java.lang.Boolean",
+		"java.lang.Integer",
+		"java.lang.Long",
+		"java.lang.Double",
+		"java.lang.Float",
+		"java.lang.Short",
+		"java.lang.Byte",
+		"java.lang.Character"
+	}
+
+	static val PURE_RESOURCE_OPERATIONS = #{"getName", "getNumber", "isAccessible"}
+
+	// Returns null if dependencies are unknown
+	def static Set<JvmDeclaredType> readResourceTypes(Pattern pattern, QualifiedName patternQualifiedName) {
+		val readResourceTypes = new LinkedHashSet<JvmDeclaredType>
+
+		for (expression : relevantExpressions(pattern)) {
+			val expressionReadResourceTypes = readResourceTypes(expression, pattern, patternQualifiedName)
+			if (expressionReadResourceTypes === null)
+				return null
+
+			readResourceTypes += expressionReadResourceTypes
+		}
+
+		return readResourceTypes
+	}
+
+	// Expressions of relevant resources and tuples in order of selection
+	def static relevantExpressions(Pattern pattern) {
+		return (pattern.relevantResources.map[value] + pattern.relevantTuples.map[value]).toList
+	}
+
+	def static Set<JvmDeclaredType> readResourceTypes(XExpression expression, Pattern pattern,
+		QualifiedName patternQualifiedName) {
+		if (expression === null)
+			return null
+
+		val resolvedTypes = resolveTypes(expression)
+		val readResourceTypes = new LinkedHashSet<JvmDeclaredType>
+		val elements = #[expression] + expression.eAllContents.toIterable
+		for (element : elements) {
+			if (element instanceof XConstructorCall)
+				return null
+
+			if (element instanceof XAbstractFeatureCall)
+				if (!isPure(element, pattern, patternQualifiedName, resolvedTypes, readResourceTypes))
+					return null
+		}
+
+		return readResourceTypes
+	}
+
+	def private static IResolvedTypes resolveTypes(XExpression expression) {
+		val resource = expression.eResource
+		if (!(resource instanceof XtextResource))
+			return null
+
+		return (resource as XtextResource).resourceServiceProvider.get(IBatchTypeResolver).resolveTypes(expression)
+	}
+
+	def private static isPure(XAbstractFeatureCall call, Pattern pattern, QualifiedName patternQualifiedName,
+		IResolvedTypes resolvedTypes, Set<JvmDeclaredType> readResourceTypes) {
+		val feature = call.feature
+		if (feature === null || feature.eIsProxy)
+			return false
+
+		if (feature instanceof JvmFormalParameter || feature instanceof XVariableDeclaration
+				|| feature instanceof JvmEnumerationLiteral || feature instanceof JvmType)
+			return true
+
+		if (feature instanceof JvmMember)
+			return isPureMember(feature, call, pattern, patternQualifiedName, resolvedTypes, readResourceTypes)
+
+		return false
+	}
+
+	def private static isPureMember(JvmMember member, XAbstractFeatureCall call, Pattern pattern,
+		QualifiedName patternQualifiedName, IResolvedTypes resolvedTypes, Set<JvmDeclaredType> readResourceTypes) {
+		val declaringType = member.declaringType
+		if (declaringType === null)
+			return false
+
+		if (isResourceType(declaringType)) {
+			// Instance members are getters of parameters, or setters and
+			// other methods that return nothing
+			if (member instanceof JvmOperation && !(member as JvmOperation).isStatic
+					&& !isImmutableType((member as JvmOperation).returnType?.type))
+				return false
+
+			readResourceTypes += declaringType
+			return true
+		}
+
+		val declaringTypeName = declaringType.getQualifiedName('.')
+
+		// Pattern parameters and relevant resources selected earlier
+		if (declaringTypeName == patternQualifiedName.toString)
+			return !(member instanceof JvmField) || isImmutableType((member as JvmField).type?.type)
+
+		if (declaringTypeName == patternQualifiedName.skipLast(1).toString && member instanceof JvmOperation) {
+			val resourceType = declaredResourceType(member as JvmOperation, pattern)
+			if (resourceType !== null) {
+				readResourceTypes += resourceType
+				return true
+			}
+		}
+
+		if (member instanceof JvmField)
+			return member.isStatic && member.isFinal && isConstantType(member.type?.type)
+
+		if (declaringType.packageName == "ru.bmstu.rk9.rao.lib.resource") {
+			if (!PURE_RESOURCE_OPERATIONS.contains(member.simpleName))
+				return false
+
+			if (member.simpleName != "isAccessible")
+				return true
+
+			// Accessibility depends on resource type of the receiver, which
+			// is not the type declaring the method
+			val receiverType = receiverResourceType(call, resolvedTypes)
+			if (receiverType === null)
+				return false
+
+			readResourceTypes += receiverType
+			return true
+		}
+
+		if (declaringTypeName == "java.lang.Math")
+			return member.simpleName != "random"
+
+		if (declaringTypeName.startsWith("org.eclipse.xtext.xbase.lib.Functions")
+				|| declaringTypeName.startsWith("org.eclipse.xtext.xbase.lib.Procedures"))
+			return false
+
+		return declaringType.packageName == "org.eclipse.xtext.xbase.lib" || PURE_TYPES.contains(declaringTypeName)
+	}
+
+	// Getters of resources declared in model return resources of their types
+	def private static declaredResourceType(JvmOperation operation, Pattern pattern) {
+		if (!operation.isStatic || !operation.parameters.empty)
+			return null
+
+		val model = EcoreUtil2.getContainerOfType(pattern, RaoModel)
+		if (model === null || !model.objects.filter(ResourceDeclaration).exists [
+			"get" + name.toFirstUpper == operation.simpleName
+		])
+			return null
+
+		val returnType = operation.returnType?.type
+		if (returnType instanceof JvmDeclaredType && isResourceType(returnType as JvmDeclaredType))
+			return returnType as JvmDeclaredType
+
+		return null
+	}
+
+	def private static receiverResourceType(XAbstractFeatureCall call, IResolvedTypes resolvedTypes) {
+		val receiver = call.actualReceiver
+		if (receiver === null || resolvedTypes === null)
+			return null
+
+		val receiverType = resolvedTypes.getActualType(receiver)?.type
+		if (receiverType instanceof JvmDeclaredType && isResourceType(receiverType as JvmDeclaredType))
+			return receiverType as JvmDeclaredType
+
+		return null
+	}
+
+	def private static isResourceType(JvmDeclaredType type) {
+		return type.superTypes.exists[it.type?.qualifiedName == ComparableResource.name]
+	}
+
+	def private static isConstantType(JvmType type) {
+		return type instanceof JvmPrimitiveType || type instanceof JvmEnumerationType
+			|| type?.qualifiedName == String.name
+	}
+
+	// Resources are immutable references, their parameters are read through
+	// getters of their own
+	def private static isImmutableType(JvmType type) {
+		return type instanceof JvmPrimitiveType || type instanceof JvmEnumerationType
+			|| IMMUTABLE_TYPES.contains(type?.qualifiedName)
+			|| (type instanceof JvmDeclaredType && isResourceType(type as JvmDeclaredType))
+	}
+}
@@ -24,6 +24,16 @@ abstract class RaoEntityCompiler {
 		return anno
 	}
 
+	def protected static JvmAnnotationReference suppressWarningsAnnotation(String warning) {
+		val anno = TypesFactoryImpl.eINSTANCE.createJvmAnnotationReference
+		val annoType = typeRef(SuppressWarnings).type as JvmAnnotationType
+		anno.setAnnotation(annoType)
+		val value = TypesFactoryImpl.eINSTANCE.createJvmStringAnnotationValue
+		value.values += warning
+		anno.explicitValues += value
+		return anno
+	}
+
 	def protected static <T> createEnumerationString(List<T> objects, Function<T, String> fun) {
 		return '''
 			«FOR o : objects»«fun.apply(o)»«IF objects.indexOf(o) != objects.size - 1», «ENDIF»«ENDFOR»
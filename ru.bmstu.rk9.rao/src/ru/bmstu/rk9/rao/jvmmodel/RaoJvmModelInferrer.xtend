@@ -36,6 +36,7 @@ import static extension ru.bmstu.rk9.rao.jvmmodel.SearchCompiler.*
 import static extension ru.bmstu.rk9.rao.jvmmodel.ResultCompiler.*
 import static extension ru.bmstu.rk9.rao.naming.RaoNaming.*
 import ru.bmstu.rk9.rao.rao.EntityCreation
+import ru.bmstu.rk9.rao.rao.Constant
 
 class RaoJvmModelInferrer extends AbstractModelInferrer {
 	@Inject extension JvmTypesBuilder jvmTypesBuilder
@@ -55,6 +56,13 @@ class RaoJvmModelInferrer extends AbstractModelInferrer {
 			members += entity.asField(jvmTypesBuilder, _typeReferenceBuilder, it, isPreIndexingPhase)
 	}
 
+	def dispatch compileRaoEntity(Constant constant, JvmDeclaredType it, boolean isPreIndexingPhase) {
+		if (!isPreIndexingPhase && constant.constructor != null) {
+			members += constant.asDefaultValueField(jvmTypesBuilder, _typeReferenceBuilder, it, isPreIndexingPhase)
+			members += constant.asField(jvmTypesBuilder, _typeReferenceBuilder, it, isPreIndexingPhase)
+		}
+	}
+
 	def dispatch compileRaoEntity(EnumDeclaration enumDeclaration, JvmDeclaredType it, boolean isPreIndexingPhase) {
 		members += enumDeclaration.asType(jvmTypesBuilder, _typeReferenceBuilder, it, isPreIndexingPhase)
 	}
@@ -7,6 +7,8 @@ import ru.bmstu.rk9.rao.rao.ResourceType
 import org.eclipse.xtext.naming.QualifiedName
 import java.util.Collection
 import org.eclipse.xtext.common.types.JvmPrimitiveType
+import org.eclipse.xtext.common.types.JvmEnumerationType
+import org.eclipse.xtext.common.types.JvmTypeReference
 import org.eclipse.xtext.xbase.jvmmodel.JvmTypeReferenceBuilder
 import java.nio.ByteBuffer
 import ru.bmstu.rk9.rao.rao.FieldDeclaration
@@ -82,10 +84,11 @@ class ResourceTypeCompiler extends RaoEntityCompiler {
 					body = '''
 						«resourceType.name» actual = this;
 
-						if (isShallowCopy)
+						if (isShallowCopy())
 							actual = ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator.getModelState().copyOnWrite(this);
 
 						actual._«param.declaration.name» = «param.declaration.name»;
+						actual.stateChanged();
 						ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator.getDatabase().memorizeResourceEntry(actual,
 								ru.bmstu.rk9.rao.lib.database.Database.ResourceEntryType.ALTERED);
 					'''
@@ -112,6 +115,18 @@ class ResourceTypeCompiler extends RaoEntityCompiler {
 				'''
 			]
 
+			members += resourceType.toMethod("stateHash", typeRef(int)) [ m |
+				m.visibility = JvmVisibility.PUBLIC
+				m.annotations += ru.bmstu.rk9.rao.jvmmodel.RaoEntityCompiler.overrideAnnotation()
+				m.body = '''
+					int hash = 0;
+					«FOR param : resourceType.parameters»
+						hash = 31 * hash + «param.hashCodeOf»;
+					«ENDFOR»
+					return hash;
+				'''
+			]
+
 			members += resourceType.toMethod("deepCopy", typeRef) [
 				visibility = JvmVisibility.PUBLIC
 				annotations += ru.bmstu.rk9.rao.jvmmodel.RaoEntityCompiler.overrideAnnotation
@@ -214,9 +229,78 @@ class ResourceTypeCompiler extends RaoEntityCompiler {
 					return ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator.getModelState().getAccessible(«resourceType.name».class);
 				'''
 			]
+
+			for (param : resourceType.parameters) {
+				val parameterName = param.declaration.name.toFirstUpper
+				val isSorted = isSortable(param.declaration.parameterType)
+				val index = '''ru.bmstu.rk9.rao.lib.simulator.CurrentSimulator.getModelState().getIndex(«resourceType.name».class, "«param.declaration.name»", «resourceType.name»::get«parameterName», «isSorted»)'''
+
+				members += param.toMethod("getAccessibleBy" + parameterName, typeRef(Collection, {
+					typeRef
+				})) [
+					visibility = JvmVisibility.PUBLIC
+					final = true
+					static = true
+					parameters += param.toParameter("value", param.declaration.parameterType)
+					body = '''
+						return «index».getAccessible(value);
+					'''
+				]
+
+				if (isSorted) {
+					members += param.toMethod("getAccessibleBy" + parameterName + "Between", typeRef(Collection, {
+						typeRef
+					})) [
+						visibility = JvmVisibility.PUBLIC
+						final = true
+						static = true
+						parameters += param.toParameter("from", param.declaration.parameterType)
+						parameters += param.toParameter("to", param.declaration.parameterType)
+						body = '''
+							return «index».getAccessibleBetween(from, to);
+						'''
+					]
+
+					members += param.toMethod("getAccessibleWithMin" + parameterName, typeRef) [
+						visibility = JvmVisibility.PUBLIC
+						final = true
+						static = true
+						body = '''
+							return «index».getAccessibleWithMin();
+						'''
+					]
+
+					members += param.toMethod("getAccessibleWithMax" + parameterName, typeRef) [
+						visibility = JvmVisibility.PUBLIC
+						final = true
+						static = true
+						body = '''
+							return «index».getAccessibleWithMax();
+						'''
+					]
+				}
+			}
 		]
 	}
 
+	// Values of parameters of these types are compared by their natural order
+	def private static isSortable(JvmTypeReference parameterType) {
+		val type = parameterType.type
+		if (type instanceof JvmPrimitiveType)
+			return type.simpleName != "boolean"
+
+		return type instanceof JvmEnumerationType || #{
+			String.name,
+			Integer.name,
+			Long.name,
+			Double.name,
+			Float.name,
+			Short.name,
+			Byte.name,
+			Character.name
+		}.contains(type.qualifiedName)
+	}
+
 	def private static getSize(FieldDeclaration param) {
 		return DataType.getByName(param.declaration.parameterType.simpleName).size
 	}
@@ -225,6 +309,32 @@ class ResourceTypeCompiler extends RaoEntityCompiler {
 		return param.getSize != 0
 	}
 
+	// Has to agree with checkEqual, which compares primitive values with ==,
+	// so negative zero is turned into positive one by adding zero to it
+	def private static hashCodeOf(FieldDeclaration param) {
+		val name = param.declaration.name
+		switch param.declaration.parameterType.simpleName {
+			case "int":
+				return '''java.lang.Integer.hashCode(this._«name»)'''
+			case "long":
+				return '''java.lang.Long.hashCode(this._«name»)'''
+			case "short":
+				return '''java.lang.Short.hashCode(this._«name»)'''
+			case "byte":
+				return '''java.lang.Byte.hashCode(this._«name»)'''
+			case "char":
+				return '''java.lang.Character.hashCode(this._«name»)'''
+			case "boolean":
+				return '''java.lang.Boolean.hashCode(this._«name»)'''
+			case "double":
+				return '''java.lang.Double.hashCode(this._«name» + 0.0)'''
+			case "float":
+				return '''java.lang.Float.hashCode(this._«name» + 0.0f)'''
+			default:
+				return '''java.util.Objects.hashCode(this._«name»)'''
+		}
+	}
+
 	def private static serializeAsFixedWidth(FieldDeclaration param) {
 		val type = DataType.getByName(param.declaration.parameterType.
 			simpleName)